@@ -0,0 +1,84 @@
+package com.undoschool.coursesearch.integration;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import com.undoschool.coursesearch.service.CourseReindexService;
+import com.undoschool.coursesearch.sync.ChangeFeedSync;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link CourseSearchIntegrationTest} against Elasticsearch in Docker, so the in-memory engine is held to the same
+ * results as the real queries, point-in-time cursors, facets, multi-search and completion suggester. The in-process
+ * browse and suggestion indexes are off, so every search and suggestion reaches Elasticsearch.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestPropertySource(properties = {
+        "course-search.engine=elasticsearch",
+        "management.health.elasticsearch.enabled=true",
+        "course-search.browse.enabled=false",
+        "course-search.suggest.prefix-index.enabled=false",
+        "course-search.sync.enabled=true"
+})
+class ElasticsearchCourseSearchIntegrationTest extends CourseSearchIntegrationTest {
+
+    @Container
+    private static final ElasticsearchContainer ELASTICSEARCH =
+            new ElasticsearchContainer("docker.elastic.co/elasticsearch/elasticsearch:8.18.1")
+                    .withEnv("xpack.security.enabled", "false");
+
+    private static final Path CHANGES = createChangeLog();
+
+    @Autowired
+    private CourseSearchEngine courseSearchEngine;
+
+    @Autowired
+    private ChangeFeedSync changeFeedSync;
+
+    @Autowired
+    private CourseReindexService courseReindexService;
+
+    @DynamicPropertySource
+    static void elasticsearch(DynamicPropertyRegistry registry) {
+        registry.add("spring.elasticsearch.uris", () -> "http://" + ELASTICSEARCH.getHttpHostAddress());
+        registry.add("course-search.sync.source", CHANGES::toString);
+    }
+
+    @Test
+    void testReindexKeepsSyncedChanges() throws Exception {
+        Files.writeString(CHANGES.resolve("changes-" + System.nanoTime() + ".ndjson"), """
+                {"op": "patch", "id": "test-001", "fields": {"price": 99.0}}
+                {"op": "delete", "id": "test-002"}
+                """);
+        changeFeedSync.sync();
+
+        courseReindexService.reindex();
+
+        assertThat(courseSearchEngine.count()).isEqualTo(2);
+        assertThat(courseSearchEngine.findAllById(List.of("test-001", "test-002")))
+                .extracting(CourseDocument::getPrice)
+                .containsExactly(99.0);
+    }
+
+    private static Path createChangeLog() {
+        try {
+            return Files.createTempDirectory("changes");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.undoschool.coursesearch.benchmark;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHitsImpl;
+import org.springframework.data.elasticsearch.core.TotalHitsRelation;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchCustomConversions;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic course data and a stubbed {@link ElasticsearchOperations} shared by the benchmarks.
+ */
+final class BenchmarkCourses {
+
+    private static final String[] CATEGORIES = {"Math", "Science", "Art", "Music", "Sports", "Language", "Technology", "History"};
+    private static final String[] SUBJECTS = {"Algebra", "Physics", "Painting", "Piano", "Soccer", "Spanish", "Robotics", "Ancient Rome"};
+    private static final String[] LEVELS = {"Intro to", "Advanced", "Hands-on", "Weekend", "Creative", "Competitive"};
+
+    private BenchmarkCourses() {
+    }
+
+    static List<CourseDocument> generate(int count) {
+        Random random = new Random(42);
+        Instant start = Instant.parse("2025-09-01T10:00:00Z");
+        List<CourseDocument> courses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int subject = random.nextInt(SUBJECTS.length);
+            int minAge = 5 + random.nextInt(10);
+            String title = LEVELS[random.nextInt(LEVELS.length)] + " " + SUBJECTS[subject];
+            courses.add(CourseDocument.builder()
+                    .id(String.format("course-%06d", i))
+                    .title(title)
+                    .description(title + " for curious learners: weekly sessions, small groups and take-home projects"
+                            + " that build on each other over the term.")
+                    .category(CATEGORIES[subject])
+                    .type(CourseDocument.CourseType.values()[random.nextInt(3)])
+                    .gradeRange(minAge - 4 + "-" + (minAge - 1))
+                    .minAge(minAge)
+                    .maxAge(minAge + 3)
+                    .price(Math.round(random.nextDouble() * 40000) / 100.0)
+                    .nextSessionDate(start.plus(random.nextInt(120), ChronoUnit.DAYS))
+                    .titleSuggest(title)
+                    .build());
+        }
+        return courses;
+    }
+
+    static MappingElasticsearchConverter converter() {
+        ElasticsearchCustomConversions conversions = new ElasticsearchCustomConversions(Collections.emptyList());
+        SimpleElasticsearchMappingContext mappingContext = new SimpleElasticsearchMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingElasticsearchConverter converter = new MappingElasticsearchConverter(mappingContext);
+        converter.setConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    // _source documents as Elasticsearch would return them
+    static List<Document> toDocuments(MappingElasticsearchConverter converter, List<CourseDocument> courses) {
+        List<Document> documents = new ArrayList<>(courses.size());
+        for (CourseDocument course : courses) {
+            Document document = Document.create();
+            converter.write(course, document);
+            document.setId(course.getId());
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    // Answers every search with the same hits, mapped through the converter like Spring Data does
+    static ElasticsearchOperations stubOperations(MappingElasticsearchConverter converter, List<Document> hits) {
+        return (ElasticsearchOperations) Proxy.newProxyInstance(
+                ElasticsearchOperations.class.getClassLoader(),
+                new Class<?>[]{ElasticsearchOperations.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "search" -> searchHits(converter, hits);
+                    case "getElasticsearchConverter" -> converter;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubElasticsearchOperations";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static SearchHitsImpl<CourseDocument> searchHits(MappingElasticsearchConverter converter, List<Document> hits) {
+        List<SearchHit<CourseDocument>> searchHits = new ArrayList<>(hits.size());
+        for (Document document : hits) {
+            CourseDocument content = converter.read(CourseDocument.class, document);
+            searchHits.add(new SearchHit<>("courses", document.getId(), null, 1.0f, null,
+                    null, null, null, null, null, content));
+        }
+        return new SearchHitsImpl<>(hits.size() * 10L, TotalHitsRelation.EQUAL_TO, 1.0f, Duration.ofMillis(3),
+                null, null, searchHits, null, null, null);
+    }
+}
@@ -0,0 +1,73 @@
+package com.undoschool.coursesearch.benchmark;
+
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.ElasticsearchCourseSearchEngine;
+import com.undoschool.coursesearch.engine.InFlightLimiter;
+import com.undoschool.coursesearch.metrics.SearchMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Elasticsearch engine's search and suggest paths end to end, minus the network: the stubbed operations
+ * answer with a canned page that is still mapped through the converter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineBenchmark {
+
+    @Param({"10", "50"})
+    private int pageSize;
+
+    private ElasticsearchCourseSearchEngine engine;
+    private CourseSearchRequest request;
+
+    @Setup
+    public void setUp() {
+        MappingElasticsearchConverter converter = BenchmarkCourses.converter();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        engine = new ElasticsearchCourseSearchEngine(
+                BenchmarkCourses.stubOperations(converter, BenchmarkCourses.toDocuments(converter, BenchmarkCourses.generate(pageSize))),
+                null,
+                null,
+                null,
+                new InFlightLimiter(meterRegistry, 64, Duration.ofSeconds(2)),
+                new SearchMetrics(meterRegistry));
+        request = CourseSearchRequest.builder()
+                .q("advanced robotics")
+                .minAge(8)
+                .category("Technology")
+                .sort("priceAsc")
+                .size(pageSize)
+                .build();
+    }
+
+    @Benchmark
+    public CourseSearchResponse search() {
+        return engine.search(request);
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return engine.suggest("adv rob", 10);
+    }
+}
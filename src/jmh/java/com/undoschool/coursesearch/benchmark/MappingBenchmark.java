@@ -0,0 +1,53 @@
+package com.undoschool.coursesearch.benchmark;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a page of _source hits into CourseDocuments, as Spring Data does for every search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"10", "50", "100"})
+    private int pageSize;
+
+    private MappingElasticsearchConverter converter;
+    private List<Document> hits;
+
+    @Setup
+    public void setUp() {
+        converter = BenchmarkCourses.converter();
+        hits = BenchmarkCourses.toDocuments(converter, BenchmarkCourses.generate(pageSize));
+    }
+
+    @Benchmark
+    public List<CourseDocument> mapHits() {
+        List<CourseDocument> courses = new ArrayList<>(hits.size());
+        for (Document hit : hits) {
+            courses.add(converter.read(CourseDocument.class, hit));
+        }
+        return courses;
+    }
+}
@@ -0,0 +1,70 @@
+package com.undoschool.coursesearch.benchmark;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.engine.CourseSortOptions;
+import com.undoschool.coursesearch.engine.ElasticsearchCourseSearchEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query construction for /api/search across filter combinations, and sort resolution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBuildingBenchmark {
+
+    @Param({"none", "text", "filters", "text+filters+facets"})
+    private String filters;
+
+    @Param({"upcoming", "priceAsc"})
+    private String sort;
+
+    private ElasticsearchCourseSearchEngine engine;
+    private CourseSearchRequest request;
+
+    @Setup
+    public void setUp() {
+        engine = new ElasticsearchCourseSearchEngine(null, null, null, null, null, null);
+        CourseSearchRequest.CourseSearchRequestBuilder builder = CourseSearchRequest.builder().sort(sort).page(2).size(20);
+        if (filters.contains("text")) {
+            builder.q("advanced robotics");
+        }
+        if (filters.contains("filters")) {
+            builder.minAge(8).maxAge(12).category("Technology").type(CourseDocument.CourseType.COURSE)
+                    .minPrice(50.0).maxPrice(250.0).startDate(LocalDateTime.parse("2025-09-01T00:00:00"));
+        }
+        if (filters.contains("facets")) {
+            builder.facets("category,type,price,age,upcoming");
+        }
+        request = builder.build();
+    }
+
+    @Benchmark
+    public NativeQuery buildSearchQuery() {
+        return engine.buildSearchQuery(request);
+    }
+
+    @Benchmark
+    public Sort getSortOptions() {
+        return CourseSortOptions.getSortOptions(sort);
+    }
+}
@@ -0,0 +1,67 @@
+package com.undoschool.coursesearch.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.undoschool.coursesearch.config.AppConfig;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.CourseFieldProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a CourseSearchResponse with the application's ObjectMapper, whole and with a listing projection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "50", "100"})
+    private int pageSize;
+
+    private ObjectWriter fullWriter;
+    private ObjectWriter projectedWriter;
+    private CourseSearchResponse response;
+    private CourseSearchResponse projectedResponse;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new AppConfig().objectMapper();
+        CourseFieldProjection projection = CourseFieldProjection.parse("id,title,price,nextSessionDate");
+        fullWriter = objectMapper.writer();
+        projectedWriter = objectMapper.writer(projection.filters());
+        response = CourseSearchResponse.builder()
+                .total(pageSize * 10L)
+                .courses(BenchmarkCourses.generate(pageSize))
+                .build();
+        projectedResponse = CourseSearchResponse.builder()
+                .total(pageSize * 10L)
+                .courses(response.getCourses().stream().map(projection::project).toList())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializeFull() throws JsonProcessingException {
+        return fullWriter.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializeProjected() throws JsonProcessingException {
+        return projectedWriter.writeValueAsBytes(projectedResponse);
+    }
+}
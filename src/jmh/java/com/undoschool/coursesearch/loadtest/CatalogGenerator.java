@@ -0,0 +1,59 @@
+package com.undoschool.coursesearch.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.undoschool.coursesearch.config.AppConfig;
+import com.undoschool.coursesearch.document.CourseDocument;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Writes a synthetic catalog as NDJSON that {@code DataLoaderService} ingests via {@code course-search.loader.source}.
+ * Courses are streamed one at a time, so any size fits in a small heap; the same seed gives the same catalog.
+ * <pre>
+ * CatalogGenerator &lt;count&gt; &lt;output.ndjson&gt; [seed]
+ * </pre>
+ */
+public final class CatalogGenerator {
+
+    private static final long DEFAULT_SEED = 42;
+
+    private CatalogGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CatalogGenerator <count> <output.ndjson> [seed]");
+            System.exit(2);
+        }
+        long count = Long.parseLong(args[0].replace("_", ""));
+        Path output = Path.of(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+
+        long started = System.nanoTime();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+            write(count, seed, Instant.now(), out);
+        }
+        System.out.printf("Wrote %,d courses to %s in %.1fs%n", count, output, (System.nanoTime() - started) / 1e9);
+    }
+
+    static void write(long count, long seed, Instant from, OutputStream out) throws IOException {
+        ObjectMapper objectMapper = new AppConfig().objectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        Random random = new Random(seed);
+        try (SequenceWriter writer = objectMapper.writerFor(CourseDocument.class)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            for (long i = 0; i < count; i++) {
+                writer.write(SyntheticCatalog.course(random, i, from));
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.undoschool.coursesearch.loadtest;
+
+import com.undoschool.coursesearch.CourseSearchApiApplication;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load driver: issues the {@link RequestMix} at a fixed arrival rate, each request on its own virtual
+ * thread, and reports latency percentiles per request kind.
+ * <p>
+ * Response time is measured from when a request was <em>scheduled</em> to go out, not when it actually did, so a
+ * stalled server or a lagging driver shows up as queueing delay instead of silently lowering the offered load
+ * (coordinated omission). Service time, from actual send to response, is reported alongside for comparison.
+ * <pre>
+ * LoadDriver [--target=http://localhost:8080 | --in-process [--catalog=file:catalog.ndjson]]
+ *            [--rate=200] [--duration=60s] [--warmup=10s] [--mix=search:80,suggest:20]
+ *            [--timeout=10s] [--seed=42] [--histogram=target/latency.hgrm]
+ * </pre>
+ * {@code --in-process} boots the API on a random port against the in-memory engine, so no Elasticsearch is needed.
+ */
+public final class LoadDriver {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final RequestMix mix;
+    private final HttpClient client;
+    private final Duration timeout;
+    private final Map<String, Histogram> responseTimes = new LinkedHashMap<>();
+    private final Map<String, Histogram> serviceTimes = new LinkedHashMap<>();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    private LoadDriver(RequestMix mix, HttpClient client, Duration timeout) {
+        this.mix = mix;
+        this.client = client;
+        this.timeout = timeout;
+        for (String kind : mix.weights().keySet()) {
+            responseTimes.put(kind, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            serviceTimes.put(kind, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "60s"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "10s"));
+        Duration timeout = DurationStyle.detectAndParse(options.getOrDefault("timeout", "10s"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        ConfigurableApplicationContext app = null;
+        String target = options.getOrDefault("target", "http://localhost:8080");
+        if (options.containsKey("in-process")) {
+            app = startInProcess(options.getOrDefault("catalog", "classpath:sample-courses.json"));
+            target = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+        }
+
+        try {
+            LoadDriver driver;
+            long lagged;
+            // Closing the executor waits for requests still in flight, so the report covers every measured request
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(timeout)
+                        .executor(executor)
+                        .build();
+                driver = new LoadDriver(new RequestMix(target, options.getOrDefault("mix", "search:80,suggest:20")), client, timeout);
+
+                System.out.printf("Offering %.0f req/s to %s for %s after %s warmup (mix %s)%n",
+                        rate, target, duration, warmup, driver.mix.weights());
+                lagged = driver.run(executor, rate, warmup, duration, new Random(seed));
+            }
+            driver.report(System.out, duration, lagged);
+            if (options.containsKey("histogram")) {
+                driver.writeHistograms(Path.of(options.get("histogram")));
+            }
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+
+    // Returns how many requests went out more than one interval late, i.e. how far the driver itself fell behind
+    private long run(ExecutorService executor, double rate, Duration warmup, Duration duration, Random random) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long lagged = 0;
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (-wait > intervalNanos) {
+                lagged++;
+            }
+            RequestMix.Request request = mix.next(random);
+            boolean measured = intended >= measureFrom;
+            executor.execute(() -> send(request, intended, measured));
+        }
+        return lagged;
+    }
+
+    private void send(RequestMix.Request request, long intended, boolean measured) {
+        long sent = System.nanoTime();
+        String outcome;
+        try {
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(request.uri()).timeout(timeout).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            outcome = String.valueOf(response.statusCode());
+        } catch (IOException e) {
+            outcome = e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long done = System.nanoTime();
+        if (measured) {
+            responseTimes.get(request.kind()).recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (done - intended) / 1000));
+            serviceTimes.get(request.kind()).recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (done - sent) / 1000));
+            outcomes.computeIfAbsent(request.kind() + " " + outcome, key -> new LongAdder()).increment();
+        }
+    }
+
+    private void report(PrintStream out, Duration duration, long lagged) {
+        out.println();
+        out.printf("%-8s %-8s %9s %9s %9s %9s %9s %9s %9s%n",
+                "kind", "latency", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "p99.99 ms", "max ms");
+        for (String kind : responseTimes.keySet()) {
+            row(out, kind, "response", responseTimes.get(kind));
+            row(out, kind, "service", serviceTimes.get(kind));
+        }
+
+        long total = responseTimes.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        out.printf("%nAchieved %.1f req/s over the measured window%n", total / (double) duration.toSeconds());
+        Map<String, Long> sorted = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> sorted.put(outcome, count.sum()));
+        sorted.forEach((outcome, count) -> out.printf("  %-30s %,d%n", outcome, count));
+        if (lagged > 0) {
+            out.printf("Driver fell behind schedule on %,d requests; response times still count from the schedule%n", lagged);
+        }
+    }
+
+    private static void row(PrintStream out, String kind, String latency, Histogram histogram) {
+        out.printf("%-8s %-8s %9d", kind, latency, histogram.getTotalCount());
+        for (double percentile : PERCENTILES) {
+            out.printf(" %9.2f", histogram.getValueAtPercentile(percentile) / 1000.0);
+        }
+        out.printf(" %9.2f%n", histogram.getMaxValue() / 1000.0);
+    }
+
+    // Percentile distributions (.hgrm, values in ms) that HdrHistogram's plotter reads, one file per kind and latency
+    private void writeHistograms(Path base) throws IOException {
+        String name = base.getFileName().toString().replaceFirst("\\.hgrm$", "");
+        for (String kind : responseTimes.keySet()) {
+            write(base.resolveSibling(name + "-" + kind + "-response.hgrm"), responseTimes.get(kind));
+            write(base.resolveSibling(name + "-" + kind + "-service.hgrm"), serviceTimes.get(kind));
+        }
+    }
+
+    private static void write(Path path, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(path))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+        System.out.println("Wrote " + path);
+    }
+
+    private static ConfigurableApplicationContext startInProcess(String catalog) {
+        System.out.println("Starting the API in-process on the in-memory engine with " + catalog);
+        // DevTools would otherwise relaunch main() in a restart class loader with the application's arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        return SpringApplication.run(CourseSearchApiApplication.class,
+                "--server.port=0",
+                "--course-search.engine=memory",
+                "--course-search.loader.source=" + catalog,
+                "--management.health.elasticsearch.enabled=false",
+                "--logging.level.com.undoschool.coursesearch=WARN",
+                "--logging.level.org.springframework.data.elasticsearch=WARN");
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals), equals < 0 ? "" : arg.substring(equals + 1));
+        }
+        return options;
+    }
+}
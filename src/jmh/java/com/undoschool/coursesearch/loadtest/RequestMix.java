@@ -0,0 +1,118 @@
+package com.undoschool.coursesearch.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * Weighted mix of {@code /api/search} and {@code /api/search/suggest} requests drawn from the
+ * {@link SyntheticCatalog} vocabulary, e.g. {@code search:80,suggest:20}.
+ */
+final class RequestMix {
+
+    static final String SEARCH = "search";
+    static final String SUGGEST = "suggest";
+
+    private static final String[] SORTS = {"upcoming", "upcoming", "priceAsc", "priceDesc"};
+    private static final String[] TYPES = {"COURSE", "ONE_TIME", "CLUB"};
+
+    record Request(String kind, URI uri) {
+    }
+
+    private final String baseUrl;
+    private final Map<String, Integer> weights;
+    private final int totalWeight;
+
+    RequestMix(String baseUrl, String mix) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.weights = parse(mix);
+        this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    Map<String, Integer> weights() {
+        return weights;
+    }
+
+    Request next(Random random) {
+        int draw = random.nextInt(totalWeight);
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            draw -= weight.getValue();
+            if (draw < 0) {
+                return weight.getKey().equals(SEARCH) ? search(random) : suggest(random);
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    // Filter combinations roughly as the site issues them: most searches carry a keyword, about half a category
+    private Request search(Random random) {
+        StringJoiner query = new StringJoiner("&");
+        int category = SyntheticCatalog.category(random);
+        if (random.nextDouble() < 0.7) {
+            String subject = SyntheticCatalog.subject(random, category);
+            query.add("q=" + encode(random.nextDouble() < 0.1 ? typo(random, subject) : subject));
+        }
+        if (random.nextDouble() < 0.45) {
+            query.add("category=" + encode(SyntheticCatalog.CATEGORIES[category]));
+        }
+        if (random.nextDouble() < 0.3) {
+            int age = 5 + random.nextInt(10);
+            query.add("minAge=" + age).add("maxAge=" + (age + 2));
+        }
+        if (random.nextDouble() < 0.2) {
+            query.add("maxPrice=" + (50 + 25 * random.nextInt(8)));
+        }
+        if (random.nextDouble() < 0.15) {
+            query.add("type=" + TYPES[random.nextInt(TYPES.length)]);
+        }
+        query.add("sort=" + SORTS[random.nextInt(SORTS.length)]);
+        if (random.nextDouble() < 0.1) {
+            query.add("page=" + (1 + random.nextInt(3)));
+        }
+        return new Request(SEARCH, URI.create(baseUrl + "/api/search?" + query));
+    }
+
+    // Two to six typed characters of a title, sometimes into the second word
+    private Request suggest(Random random) {
+        int category = SyntheticCatalog.category(random);
+        String title = random.nextBoolean()
+                ? SyntheticCatalog.subject(random, category)
+                : SyntheticCatalog.LEVELS[random.nextInt(SyntheticCatalog.LEVELS.length)] + " "
+                        + SyntheticCatalog.subject(random, category);
+        String prefix = title.substring(0, Math.min(title.length(), 2 + random.nextInt(random.nextBoolean() ? 5 : title.length())));
+        return new Request(SUGGEST, URI.create(baseUrl + "/api/search/suggest?q=" + encode(prefix.toLowerCase())));
+    }
+
+    // Drops one character, which fuzzy matching should still recover
+    private static String typo(Random random, String word) {
+        int at = 1 + random.nextInt(word.length() - 1);
+        return word.substring(0, at) + word.substring(at + 1);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Integer> parse(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            String kind = parts[0].trim();
+            if (!kind.equals(SEARCH) && !kind.equals(SUGGEST)) {
+                throw new IllegalArgumentException("Unknown request kind: " + kind);
+            }
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight > 0) {
+                weights.put(kind, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Empty request mix: " + mix);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,148 @@
+package com.undoschool.coursesearch.loadtest;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+/**
+ * Vocabulary and distributions for synthetic catalogs, shared by {@link CatalogGenerator} and the request mix in
+ * {@link LoadDriver} so generated queries hit generated courses.
+ * <p>
+ * Categories follow a Zipf curve (a few dominate, a long tail has a handful of courses each), prices are
+ * log-normal around $120, ages cluster on 6-10 and session dates bunch up in the coming weeks.
+ */
+final class SyntheticCatalog {
+
+    static final String[] CATEGORIES = {
+            "Science", "Art", "Technology", "Math", "Sports", "Language Arts", "Music", "Life Skills",
+            "Language", "Wellness", "History", "Geography", "Business", "Crafts", "Health", "Strategy"};
+
+    static final String[][] SUBJECTS = {
+            {"Physics", "Chemistry", "Biology", "Astronomy", "Dinosaurs", "Marine Biology", "Ecology", "Geology"},
+            {"Drawing", "Painting", "Watercolor", "Sculpture", "Cartooning", "Pottery", "Digital Art"},
+            {"Robotics", "Python", "Scratch Coding", "Game Design", "Web Design", "Minecraft Modding", "3D Printing"},
+            {"Algebra", "Geometry", "Fractions", "Mental Math", "Statistics", "Math Olympiad", "Pre-Algebra"},
+            {"Soccer", "Basketball", "Yoga", "Chess Fitness", "Martial Arts", "Swimming Theory", "Dance"},
+            {"Creative Writing", "Poetry", "Reading Comprehension", "Grammar", "Storytelling", "Public Speaking"},
+            {"Piano", "Guitar", "Ukulele", "Music Theory", "Singing", "Songwriting", "Drums"},
+            {"Cooking", "Financial Literacy", "Time Management", "Baking", "First Aid", "Gardening"},
+            {"Spanish", "French", "Mandarin", "Japanese", "German", "Sign Language"},
+            {"Mindfulness", "Meditation", "Emotional Intelligence", "Sleep Science"},
+            {"Ancient Civilizations", "World History", "Ancient Egypt", "Medieval Europe", "American History"},
+            {"World Geography", "Map Skills", "Countries of the World", "Volcanoes"},
+            {"Entrepreneurship", "Marketing", "Lemonade Stand Economics"},
+            {"Origami", "Knitting", "Jewelry Making", "Paper Crafts"},
+            {"Nutrition", "Human Body", "Healthy Habits"},
+            {"Chess", "Logic Puzzles", "Board Game Strategy"}};
+
+    static final String[] LEVELS = {
+            "Introduction to", "Advanced", "Beginner", "Hands-on", "Creative", "Fun with", "Exploring", "Mastering",
+            "Weekend", "Summer"};
+
+    private static final String[] SUFFIXES = {"", "", "", " for Kids", " Workshop", " Lab", " Adventures", " Bootcamp"};
+
+    private static final double CATEGORY_SKEW = 1.1;
+
+    private static final double[] CATEGORY_CDF = zipfCdf(CATEGORIES.length, CATEGORY_SKEW);
+
+    private SyntheticCatalog() {
+    }
+
+    static CourseDocument course(Random random, long index, Instant from) {
+        int category = category(random);
+        String subject = subject(random, category);
+        CourseDocument.CourseType type = type(random);
+        String title = LEVELS[random.nextInt(LEVELS.length)] + " " + subject
+                + (type == CourseDocument.CourseType.CLUB ? " Club" : SUFFIXES[random.nextInt(SUFFIXES.length)]);
+
+        // Most courses target 6-10 year olds; spans run 2-6 years and stay within 4-18
+        int minAge = clamp((int) Math.round(8 + random.nextGaussian() * 2.5), 4, 16);
+        int maxAge = Math.min(18, minAge + 2 + random.nextInt(5));
+
+        return CourseDocument.builder()
+                .id(String.format("syn-%08d", index))
+                .title(title)
+                .description(title + ": " + subject.toLowerCase() + " through " + (type == CourseDocument.CourseType.ONE_TIME
+                        ? "a single live session" : "weekly live sessions") + " with small groups, projects and take-home activities.")
+                .category(CATEGORIES[category])
+                .type(type)
+                .gradeRange(grade(minAge - 5) + "-" + grade(maxAge - 5))
+                .minAge(minAge)
+                .maxAge(maxAge)
+                .price(price(random))
+                .nextSessionDate(sessionDate(random, from))
+                .build();
+    }
+
+    static int category(Random random) {
+        double draw = random.nextDouble();
+        for (int i = 0; i < CATEGORY_CDF.length; i++) {
+            if (draw < CATEGORY_CDF[i]) {
+                return i;
+            }
+        }
+        return CATEGORY_CDF.length - 1;
+    }
+
+    static String subject(Random random, int category) {
+        // Earlier subjects are the popular ones within a category
+        String[] subjects = SUBJECTS[category];
+        return subjects[Math.min(random.nextInt(subjects.length), random.nextInt(subjects.length))];
+    }
+
+    private static CourseDocument.CourseType type(Random random) {
+        double draw = random.nextDouble();
+        return draw < 0.55 ? CourseDocument.CourseType.COURSE
+                : draw < 0.85 ? CourseDocument.CourseType.ONE_TIME
+                : CourseDocument.CourseType.CLUB;
+    }
+
+    // Log-normal around $120, with a few free courses and whole or .99 prices
+    private static double price(Random random) {
+        if (random.nextDouble() < 0.03) {
+            return 0.0;
+        }
+        double dollars = Math.min(2000, Math.max(10, Math.exp(Math.log(120) + random.nextGaussian() * 0.6)));
+        return random.nextBoolean() ? Math.round(dollars) : Math.floor(dollars) + 0.99;
+    }
+
+    // Sessions bunch up in the next few weeks and thin out over six months, on the hour or half hour
+    private static Instant sessionDate(Random random, Instant from) {
+        long days = Math.min(180, (long) (-Math.log(1 - random.nextDouble()) * 30));
+        return from.truncatedTo(ChronoUnit.DAYS)
+                .plus(days, ChronoUnit.DAYS)
+                .plus(8 + random.nextInt(12), ChronoUnit.HOURS)
+                .plus(random.nextBoolean() ? 30 : 0, ChronoUnit.MINUTES);
+    }
+
+    private static String grade(int grade) {
+        if (grade <= 0) {
+            return "K";
+        }
+        return grade + switch (grade % 100 >= 11 && grade % 100 <= 13 ? 0 : grade % 10) {
+            case 1 -> "st";
+            case 2 -> "nd";
+            case 3 -> "rd";
+            default -> "th";
+        };
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += 1 / Math.pow(i + 1, skew);
+            cdf[i] = total;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+}
@@ -3,6 +3,7 @@ package com.undoschool.coursesearch;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.elasticsearch.ElasticsearchRepositoriesAutoConfiguration;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.Environment;
 
@@ -10,7 +11,8 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 
 @Slf4j
-@SpringBootApplication
+// Repositories are enabled by ElasticsearchConfig only when the Elasticsearch engine is selected
+@SpringBootApplication(exclude = ElasticsearchRepositoriesAutoConfiguration.class)
 public class CourseSearchApiApplication {
 
 	public static void main(String[] args) throws UnknownHostException {
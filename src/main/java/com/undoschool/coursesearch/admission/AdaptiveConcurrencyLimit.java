@@ -0,0 +1,63 @@
+package com.undoschool.coursesearch.admission;
+
+/**
+ * Concurrency limit that adapts to observed latency, AIMD style: each request answered within the latency target
+ * grows the limit by 1/limit (about one per round of requests), and a request over the target or turned away
+ * downstream shrinks it by the backoff factor. Shrinking happens at most once per round trip: only requests
+ * admitted after the last decrease can cause the next one, as earlier ones still saw the old load.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoff;
+    private double limit;
+    private int inFlight;
+    private long lastDecrease = System.nanoTime();
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, double backoff) {
+        if (minLimit < 1 || maxLimit < minLimit || backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException("Concurrency limit needs 1 <= min-limit <= max-limit and 0 < backoff < 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.backoff = backoff;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    // dropped: the request was turned away further down (backend busy), which says more than its latency
+    synchronized void release(long admittedNanos, long latencyNanos, boolean dropped) {
+        inFlight--;
+        if (dropped || latencyNanos > latencyTargetNanos) {
+            if (admittedNanos - lastDecrease >= 0) {
+                limit = Math.max(minLimit, limit * backoff);
+                lastDecrease = System.nanoTime();
+            }
+        } else if (inFlight + 1 >= limit / 2) {
+            // Only a limit that is actually being used grows; idle headroom says nothing about capacity
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    synchronized boolean isSaturated() {
+        return inFlight >= (int) limit;
+    }
+
+    synchronized int limit() {
+        return (int) limit;
+    }
+
+    synchronized int inFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,112 @@
+package com.undoschool.coursesearch.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Adaptive admission control for the search endpoints. Each endpoint has its own {@link AdaptiveConcurrencyLimit};
+ * a request over it is rejected with 503 right away rather than queueing behind the others.
+ * <p>
+ * Endpoints are ranked: keystroke-rate suggestions first, full searches second. While a higher-ranked endpoint is
+ * saturated, lower-ranked requests are shed as well, so heavy searches give way before suggestions do.
+ */
+@Component
+public class AdmissionControl implements HandlerInterceptor {
+
+    static final String REJECTED_COUNTER = "course.admission.rejected";
+
+    private static final String ADMISSION = AdmissionControl.class.getName() + ".admission";
+
+    private final boolean enabled;
+    // By path, highest priority first
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    public AdmissionControl(MeterRegistry meterRegistry,
+                            @Value("${course-search.admission.enabled:true}") boolean enabled,
+                            @Value("${course-search.admission.min-limit:4}") int minLimit,
+                            @Value("${course-search.admission.backoff:0.9}") double backoff,
+                            @Value("${course-search.admission.suggest.initial-limit:64}") int suggestInitialLimit,
+                            @Value("${course-search.admission.suggest.max-limit:1024}") int suggestMaxLimit,
+                            @Value("${course-search.admission.suggest.latency-target:50ms}") Duration suggestLatencyTarget,
+                            @Value("${course-search.admission.search.initial-limit:32}") int searchInitialLimit,
+                            @Value("${course-search.admission.search.max-limit:256}") int searchMaxLimit,
+                            @Value("${course-search.admission.search.latency-target:300ms}") Duration searchLatencyTarget) {
+        this.enabled = enabled;
+        register(meterRegistry, "/api/search/suggest", "suggest",
+                new AdaptiveConcurrencyLimit(suggestInitialLimit, minLimit, suggestMaxLimit, suggestLatencyTarget.toNanos(), backoff));
+        register(meterRegistry, "/api/search", "search",
+                new AdaptiveConcurrencyLimit(searchInitialLimit, minLimit, searchMaxLimit, searchLatencyTarget.toNanos(), backoff));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled) {
+            return true;
+        }
+        Endpoint endpoint = endpoints.get(request.getRequestURI().substring(request.getContextPath().length()));
+        if (endpoint == null) {
+            return true;
+        }
+        for (Endpoint other : endpoints.values()) {
+            if (other == endpoint) {
+                break;
+            }
+            if (other.limit().isSaturated()) {
+                throw endpoint.reject("Shedding " + endpoint.name() + " requests while " + other.name() + " is at its limit");
+            }
+        }
+        if (!endpoint.limit().tryAcquire()) {
+            throw endpoint.reject("All " + endpoint.limit().limit() + " " + endpoint.name() + " slots are busy");
+        }
+        request.setAttribute(ADMISSION, new Admission(endpoint, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(ADMISSION) instanceof Admission admission)) {
+            return;
+        }
+        request.removeAttribute(ADMISSION);
+        boolean dropped = ex != null || response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+        admission.endpoint().limit().release(admission.admitted(), System.nanoTime() - admission.admitted(), dropped);
+    }
+
+    private void register(MeterRegistry meterRegistry, String path, String name, AdaptiveConcurrencyLimit limit) {
+        Counter rejected = Counter.builder(REJECTED_COUNTER)
+                .description("Requests turned away because their endpoint was at its concurrency limit")
+                .tag("endpoint", name)
+                .register(meterRegistry);
+        Gauge.builder("course.admission.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive concurrency limit")
+                .tag("endpoint", name)
+                .register(meterRegistry);
+        Gauge.builder("course.admission.in.flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                .description("Requests currently admitted")
+                .tag("endpoint", name)
+                .register(meterRegistry);
+        endpoints.put(path, new Endpoint(name, limit, rejected));
+    }
+
+    private record Endpoint(String name, AdaptiveConcurrencyLimit limit, Counter rejected) {
+
+        AdmissionRejectedException reject(String message) {
+            rejected.increment();
+            return new AdmissionRejectedException(message);
+        }
+    }
+
+    private record Admission(Endpoint endpoint, long admitted) {
+    }
+}
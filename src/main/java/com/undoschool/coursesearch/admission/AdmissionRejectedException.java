@@ -0,0 +1,13 @@
+package com.undoschool.coursesearch.admission;
+
+import com.undoschool.coursesearch.engine.SearchBackendBusyException;
+
+/**
+ * Thrown before a request reaches its handler when its endpoint is at its concurrency limit; answered with 503.
+ */
+public class AdmissionRejectedException extends SearchBackendBusyException {
+
+    public AdmissionRejectedException(String message) {
+        super(message);
+    }
+}
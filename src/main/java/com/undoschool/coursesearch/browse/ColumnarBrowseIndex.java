@@ -0,0 +1,466 @@
+package com.undoschool.coursesearch.browse;
+
+import com.undoschool.coursesearch.catalog.CatalogChangedEvent;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.CourseFacet;
+import com.undoschool.coursesearch.engine.CourseFieldProjection;
+import com.undoschool.coursesearch.engine.CoursePaging;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import com.undoschool.coursesearch.engine.CourseSortOptions;
+import com.undoschool.coursesearch.snapshot.CatalogSnapshot;
+import com.undoschool.coursesearch.snapshot.CatalogSnapshotService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Columnar copy of the filterable course fields that answers browse searches (no q, cursor or facets) without
+ * a query: ages, price and next session date sit in primitive arrays, category and type in a bitset per value,
+ * and each sort is a permutation of the rows, kept sorted as rows are added. A browse intersects bitsets, scans the range columns and
+ * walks the permutation for its page, then fetches only that page's documents from the engine by id.
+ * <p>
+ * Built at startup (from a current catalog snapshot when there is one) and kept current from
+ * {@link CatalogChangedEvent}s; a rebuild fills new columns while the current ones keep serving, then swaps them in. Like the in-memory engine, a saved course moves to a new row and ties keep row order.
+ */
+@Slf4j
+@Component
+public class ColumnarBrowseIndex {
+
+    public static final String BROWSE_COUNTER = "course.search.browse";
+
+    private static final int NULL_INT = CatalogSnapshot.NULL_INT;
+    private static final long NULL_LONG = CatalogSnapshot.NULL_LONG;
+    private static final BitSet NONE = new BitSet();
+    private static final List<Sort> SORTS = Stream.of("upcoming", "priceAsc", "priceDesc")
+            .map(CourseSortOptions::getSortOptions)
+            .toList();
+
+    private final CourseSearchEngine courseSearchEngine;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final boolean enabled;
+    private final Counter browsed;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns = new Columns();
+    // Non-null while a build reads the catalog
+    private List<CatalogChangedEvent> changedDuringBuild;
+    private volatile boolean ready;
+
+    public ColumnarBrowseIndex(CourseSearchEngine courseSearchEngine,
+                               CatalogSnapshotService catalogSnapshotService,
+                               MeterRegistry meterRegistry,
+                               @Value("${course-search.browse.enabled:true}") boolean enabled) {
+        this.courseSearchEngine = courseSearchEngine;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.enabled = enabled;
+        this.browsed = Counter.builder(BROWSE_COUNTER)
+                .description("Filter-only searches answered by the columnar browse index")
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Full-text, cursor and faceted searches need the engine
+    public static boolean handles(CourseSearchRequest request) {
+        return !StringUtils.hasText(request.getQ())
+                && request.getCursor() == null
+                && CourseFacet.parse(request.getFacets()).isEmpty();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        build(true);
+    }
+
+    // After a reindex: the snapshot describes the previous index, so the columns are read from the engine
+    public void rebuild() {
+        build(false);
+    }
+
+    // Filled off-lock and swapped in, so browses keep being answered from the current columns meanwhile. Changes
+    // published while the catalog is read are recorded and replayed onto the new columns before the swap.
+    private synchronized void build(boolean fromSnapshot) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        record(new ArrayList<>());
+        Columns built = new Columns();
+        try {
+            Optional<CatalogSnapshot> snapshot = fromSnapshot ? catalogSnapshotService.current() : Optional.empty();
+            if (snapshot.isPresent()) {
+                built.addAll(snapshot.get());
+            } else {
+                try (Stream<CourseDocument> courses = courseSearchEngine.streamAll()) {
+                    courses.forEach(built::add);
+                }
+            }
+            built.order();
+        } catch (RuntimeException e) {
+            // Browses go to the engine until the next successful build
+            log.warn("Could not build columnar browse index: {}", e.getMessage(), e);
+            record(null);
+            lock.writeLock().lock();
+            try {
+                columns = new Columns();
+                ready = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        int courses;
+        lock.writeLock().lock();
+        try {
+            for (CatalogChangedEvent event : changedDuringBuild) {
+                built = apply(built, event);
+            }
+            changedDuringBuild = null;
+            columns = built;
+            courses = built.rowsById.size();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built columnar browse index with {} courses in {} ms",
+                courses, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void record(List<CatalogChangedEvent> changes) {
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(event);
+            }
+            if (ready) {
+                columns = apply(columns, event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The columns after the change: the same instance, or a new one when it was cleared or compacted
+    private static Columns apply(Columns target, CatalogChangedEvent event) {
+        Columns result = event.isCleared() ? new Columns() : target;
+        event.getDeletedIds().forEach(result::remove);
+        event.getSaved().forEach(result::add);
+        result.order();
+        if (result.rows - result.rowsById.size() > Math.max(1024, result.rowsById.size())) {
+            result = result.compact();
+        }
+        return result;
+    }
+
+    public CourseSearchResponse search(CourseSearchRequest request) {
+        CoursePaging.validate(request);
+        PageRequest page = PageRequest.of(request.getPage(), request.getSize());
+        Sort sort = CourseSortOptions.getSortOptions(request.getSort());
+        CourseFieldProjection projection = CourseFieldProjection.parse(request.getFields());
+
+        Hits hits;
+        lock.readLock().lock();
+        try {
+            hits = columns.browse(request, columns.orders.get(sort), page);
+        } finally {
+            lock.readLock().unlock();
+        }
+        browsed.increment();
+
+        // Documents come from the engine, so a page is served exactly as indexed
+        Map<String, CourseDocument> byId = courseSearchEngine.findAllById(hits.ids()).stream()
+                .collect(Collectors.toMap(CourseDocument::getId, Function.identity(), (a, b) -> a));
+        List<CourseDocument> courses = hits.ids().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(course -> projection != null ? projection.project(course) : course)
+                .collect(Collectors.toCollection(ArrayList::new));
+        return CourseSearchResponse.builder()
+                .total(hits.total())
+                .courses(courses)
+                .build();
+    }
+
+    // One copy of the columns; guarded by the index's lock once it is swapped in
+    private static final class Columns {
+        private int rows;
+        private String[] ids = new String[0];
+        private int[] minAges = new int[0];
+        private int[] maxAges = new int[0];
+        private double[] prices = new double[0];
+        private long[] nextSessionDates = new long[0];
+        private String[] categories = new String[0];
+        private CourseDocument.CourseType[] types = new CourseDocument.CourseType[0];
+        private final BitSet live = new BitSet();
+        private final Map<String, Integer> rowsById = new HashMap<>();
+        private final Map<String, BitSet> rowsByCategory = new HashMap<>();
+        private final Map<CourseDocument.CourseType, BitSet> rowsByType = new EnumMap<>(CourseDocument.CourseType.class);
+        // Every row, removed ones included, in the order of each sort; the first `ordered` entries are sorted
+        private final Map<Sort, int[]> orders = new HashMap<>();
+        private int ordered;
+
+        private Columns() {
+            SORTS.forEach(sort -> orders.put(sort, new int[0]));
+        }
+
+        private Hits browse(CourseSearchRequest request, int[] order, PageRequest page) {
+            BitSet matches = (BitSet) live.clone();
+            if (StringUtils.hasText(request.getCategory())) {
+                matches.and(rowsByCategory.getOrDefault(request.getCategory(), NONE));
+            }
+            if (request.getType() != null) {
+                matches.and(rowsByType.getOrDefault(request.getType(), NONE));
+            }
+
+            // Range filters never match rows missing the field, as in Elasticsearch; NaN prices fail every comparison
+            int minAge = request.getMinAge() != null ? request.getMinAge() : NULL_INT;
+            int maxAge = request.getMaxAge() != null ? request.getMaxAge() : NULL_INT;
+            double minPrice = request.getMinPrice() != null ? request.getMinPrice() : Double.NaN;
+            double maxPrice = request.getMaxPrice() != null ? request.getMaxPrice() : Double.NaN;
+            long startDate = request.getStartDate() != null
+                    ? request.getStartDate().toInstant(ZoneOffset.UTC).toEpochMilli() : NULL_LONG;
+            boolean ranged = minAge != NULL_INT || maxAge != NULL_INT || !Double.isNaN(minPrice) || !Double.isNaN(maxPrice)
+                    || startDate != NULL_LONG;
+            if (ranged) {
+                for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                    if ((minAge != NULL_INT && (maxAges[row] == NULL_INT || maxAges[row] < minAge))
+                            || (maxAge != NULL_INT && (minAges[row] == NULL_INT || minAges[row] > maxAge))
+                            || (!Double.isNaN(minPrice) && !(prices[row] >= minPrice))
+                            || (!Double.isNaN(maxPrice) && !(prices[row] <= maxPrice))
+                            || (startDate != NULL_LONG && (nextSessionDates[row] == NULL_LONG || nextSessionDates[row] < startDate))) {
+                        matches.clear(row);
+                    }
+                }
+            }
+
+            long total = matches.cardinality();
+            List<String> pageIds = new ArrayList<>(page.getPageSize());
+            if (page.getOffset() < total) {
+                long skipped = 0;
+                for (int i = 0; i < rows; i++) {
+                    int row = order[i];
+                    if (!matches.get(row) || skipped++ < page.getOffset()) {
+                        continue;
+                    }
+                    pageIds.add(ids[row]);
+                    if (pageIds.size() == page.getPageSize()) {
+                        break;
+                    }
+                }
+            }
+            return new Hits(total, pageIds);
+        }
+
+        // Sorts the rows added since the last call and merges them into each order, so a change costs one pass
+        // over the rows rather than a full sort
+        private void order() {
+            if (ordered == rows) {
+                return;
+            }
+            for (Map.Entry<Sort, int[]> entry : orders.entrySet()) {
+                Sort.Order by = entry.getKey().iterator().next();
+                int[] order = entry.getValue();
+                int[] added = sorted(by, ordered, rows);
+                // From the back, so the merge fits in place; on ties the earlier row goes first
+                int i = ordered - 1;
+                int j = added.length - 1;
+                for (int at = rows - 1; j >= 0; at--) {
+                    order[at] = i >= 0 && key(by, order[i]) > key(by, added[j]) ? order[i--] : added[j--];
+                }
+            }
+            ordered = rows;
+        }
+
+        // Rows from..to ordered like CourseSortOptions.comparator, ties by row: each row's key is replaced by its rank
+        // among the distinct keys and packed above the row, so two primitive sorts do the work
+        private int[] sorted(Sort.Order by, int from, int to) {
+            long[] keys = new long[to - from];
+            for (int row = from; row < to; row++) {
+                keys[row - from] = key(by, row);
+            }
+            long[] distinct = keys.clone();
+            Arrays.sort(distinct);
+            int unique = 0;
+            for (long key : distinct) {
+                if (unique == 0 || distinct[unique - 1] != key) {
+                    distinct[unique++] = key;
+                }
+            }
+            long[] packed = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                packed[i] = (long) Arrays.binarySearch(distinct, 0, unique, keys[i]) << 32 | i;
+            }
+            Arrays.sort(packed);
+            int[] sorted = new int[packed.length];
+            for (int i = 0; i < packed.length; i++) {
+                sorted[i] = from + (int) packed[i];
+            }
+            return sorted;
+        }
+
+        // Orders as the sort does: missing values last in either direction
+        private long key(Sort.Order by, int row) {
+            return switch (by.getProperty()) {
+                case "price" -> {
+                    if (Double.isNaN(prices[row])) {
+                        yield Long.MAX_VALUE;
+                    }
+                    // Flips the magnitude bits of negatives, so the bits order like Double.compare
+                    long bits = Double.doubleToLongBits(prices[row]);
+                    long key = bits ^ (bits >> 63 & Long.MAX_VALUE);
+                    yield by.isAscending() ? key : ~key;
+                }
+                case "nextSessionDate" -> nextSessionDates[row] == NULL_LONG ? Long.MAX_VALUE
+                        : by.isAscending() ? nextSessionDates[row] : ~nextSessionDates[row];
+                default -> throw new IllegalArgumentException("Unsupported sort field: " + by.getProperty());
+            };
+        }
+
+        private void add(CourseDocument course) {
+            add(course.getId(),
+                    course.getMinAge() != null ? course.getMinAge() : NULL_INT,
+                    course.getMaxAge() != null ? course.getMaxAge() : NULL_INT,
+                    course.getPrice() != null ? course.getPrice() : Double.NaN,
+                    course.getNextSessionDate() != null ? course.getNextSessionDate().toEpochMilli() : NULL_LONG,
+                    course.getCategory(),
+                    course.getType());
+        }
+
+        // Reads the snapshot's columns directly, without decoding titles and descriptions
+        private void addAll(CatalogSnapshot snapshot) {
+            for (int row = 0; row < snapshot.size(); row++) {
+                int category = snapshot.categoryCode(row);
+                int type = snapshot.typeCode(row);
+                add(snapshot.id(row),
+                        snapshot.minAge(row),
+                        snapshot.maxAge(row),
+                        snapshot.price(row),
+                        snapshot.nextSessionDate(row),
+                        category >= 0 ? snapshot.categories().get(category) : null,
+                        type >= 0 ? snapshot.types().get(type) : null);
+            }
+        }
+
+        private void add(String id, int minAge, int maxAge, double price, long nextSessionDate,
+                         String category, CourseDocument.CourseType type) {
+            remove(id);
+            if (rows == ids.length) {
+                grow(Math.max(16, rows * 2));
+            }
+            int row = rows++;
+            ids[row] = id;
+            minAges[row] = minAge;
+            maxAges[row] = maxAge;
+            prices[row] = price;
+            nextSessionDates[row] = nextSessionDate;
+            categories[row] = category;
+            types[row] = type;
+            live.set(row);
+            rowsById.put(id, row);
+            if (category != null) {
+                rowsByCategory.computeIfAbsent(category, key -> new BitSet()).set(row);
+            }
+            if (type != null) {
+                rowsByType.computeIfAbsent(type, key -> new BitSet()).set(row);
+            }
+        }
+
+        private void remove(String id) {
+            Integer row = rowsById.remove(id);
+            if (row == null) {
+                return;
+            }
+            live.clear(row);
+            if (categories[row] != null) {
+                BitSet category = rowsByCategory.get(categories[row]);
+                category.clear(row);
+                if (category.isEmpty()) {
+                    rowsByCategory.remove(categories[row]);
+                }
+            }
+            if (types[row] != null) {
+                rowsByType.get(types[row]).clear(row);
+            }
+            // The row stays in the orders, where browses skip it as not live
+            ids[row] = null;
+            categories[row] = null;
+            types[row] = null;
+        }
+
+        // Drops removed rows, keeping the live ones in order; the orders carry over renumbered, without sorting
+        private Columns compact() {
+            Columns compacted = new Columns();
+            compacted.grow(Math.max(16, rowsById.size()));
+            int[] renumbered = new int[rows];
+            for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+                renumbered[row] = compacted.rows;
+                compacted.add(ids[row], minAges[row], maxAges[row], prices[row], nextSessionDates[row],
+                        categories[row], types[row]);
+            }
+            for (Map.Entry<Sort, int[]> entry : orders.entrySet()) {
+                int[] order = compacted.orders.get(entry.getKey());
+                int at = 0;
+                for (int i = 0; i < ordered; i++) {
+                    int row = entry.getValue()[i];
+                    if (live.get(row)) {
+                        order[at++] = renumbered[row];
+                    }
+                }
+            }
+            compacted.ordered = compacted.rows;
+            return compacted;
+        }
+
+        private void grow(int capacity) {
+            ids = Arrays.copyOf(ids, capacity);
+            minAges = Arrays.copyOf(minAges, capacity);
+            maxAges = Arrays.copyOf(maxAges, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            nextSessionDates = Arrays.copyOf(nextSessionDates, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            types = Arrays.copyOf(types, capacity);
+            orders.replaceAll((sort, order) -> Arrays.copyOf(order, capacity));
+        }
+    }
+
+    private record Hits(long total, List<String> ids) {
+    }
+}
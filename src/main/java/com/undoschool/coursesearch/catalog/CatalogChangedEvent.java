@@ -0,0 +1,42 @@
+package com.undoschool.coursesearch.catalog;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published after the indexed catalog changed. {@code cleared} means every document was removed;
+ * {@code replaced} means the whole catalog was swapped for a rebuilt copy, and the in-process indexes
+ * derived from it were already rebuilt before the event. Otherwise {@code saved} and {@code deletedIds}
+ * describe the change. An event with none of these only signals that earlier bulk writes became searchable.
+ */
+@Value
+public class CatalogChangedEvent {
+    long generation;
+    Collection<CourseDocument> saved;
+    Collection<String> deletedIds;
+    boolean cleared;
+    boolean replaced;
+
+    static CatalogChangedEvent saved(long generation, Collection<CourseDocument> courses) {
+        return new CatalogChangedEvent(generation, courses, List.of(), false, false);
+    }
+
+    static CatalogChangedEvent deleted(long generation, Collection<String> ids) {
+        return new CatalogChangedEvent(generation, List.of(), ids, false, false);
+    }
+
+    static CatalogChangedEvent refreshed(long generation) {
+        return new CatalogChangedEvent(generation, List.of(), List.of(), false, false);
+    }
+
+    static CatalogChangedEvent cleared(long generation) {
+        return new CatalogChangedEvent(generation, List.of(), List.of(), true, false);
+    }
+
+    static CatalogChangedEvent replaced(long generation) {
+        return new CatalogChangedEvent(generation, List.of(), List.of(), false, true);
+    }
+}
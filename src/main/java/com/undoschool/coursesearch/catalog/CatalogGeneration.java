@@ -0,0 +1,51 @@
+package com.undoschool.coursesearch.catalog;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the indexed catalog. Every write bumps it after the change is visible
+ * and publishes a {@link CatalogChangedEvent}, so derived state (caches, in-memory indexes) can follow.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogGeneration {
+
+    private final AtomicLong generation = new AtomicLong();
+    private final ApplicationEventPublisher eventPublisher;
+
+    public long current() {
+        return generation.get();
+    }
+
+    public void saved(Collection<CourseDocument> courses) {
+        if (!courses.isEmpty()) {
+            eventPublisher.publishEvent(CatalogChangedEvent.saved(generation.incrementAndGet(), courses));
+        }
+    }
+
+    public void deleted(Collection<String> ids) {
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(CatalogChangedEvent.deleted(generation.incrementAndGet(), ids));
+        }
+    }
+
+    // Bulk writes already reported through saved() are now visible to searches
+    public void refreshed() {
+        eventPublisher.publishEvent(CatalogChangedEvent.refreshed(generation.incrementAndGet()));
+    }
+
+    public void cleared() {
+        eventPublisher.publishEvent(CatalogChangedEvent.cleared(generation.incrementAndGet()));
+    }
+
+    // Another copy of the catalog is serving now; call once the in-process indexes were rebuilt from it
+    public void replaced() {
+        eventPublisher.publishEvent(CatalogChangedEvent.replaced(generation.incrementAndGet()));
+    }
+}
@@ -2,12 +2,20 @@ package com.undoschool.coursesearch.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.undoschool.coursesearch.json.CourseJsonCache;
+import com.undoschool.coursesearch.metrics.SearchMetrics;
+import com.undoschool.coursesearch.metrics.TimedJacksonHttpMessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
     @Bean
@@ -22,7 +30,20 @@ public class AppConfig {
         // Disable timestamp format and nanoseconds
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         mapper.disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS);
+
+        // CourseDocument's field projection filter writes every property unless a request overrides it
+        mapper.setFilterProvider(new SimpleFilterProvider()
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
         
         return mapper;
     }
+
+    // Replaces Boot's default JSON converter so response serialization is timed per search endpoint, and courses
+    // in responses are written from their cached JSON
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   SearchMetrics searchMetrics,
+                                                                                   CourseJsonCache courseJsonCache) {
+        return new TimedJacksonHttpMessageConverter(objectMapper.copy().registerModule(courseJsonCache.module()), searchMetrics);
+    }
 }
@@ -1,22 +1,183 @@
 package com.undoschool.coursesearch.config;
 
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.engine.TimedElasticsearchConverter;
+import com.undoschool.coursesearch.metrics.ElasticsearchPoolMetrics;
+import com.undoschool.coursesearch.repository.CatalogChangeInterceptor;
+import com.undoschool.coursesearch.suggest.SuggestWeight;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.RestClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.elasticsearch.client.ClientConfiguration;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchClients;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchConfiguration;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchCustomConversions;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
 import org.springframework.data.elasticsearch.repository.config.EnableElasticsearchRepositories;
+import org.springframework.data.elasticsearch.repository.support.ElasticsearchRepositoryFactoryBean;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
 @Configuration
+@ConditionalOnProperty(name = "course-search.engine", havingValue = "elasticsearch", matchIfMissing = true)
 @EnableElasticsearchRepositories(basePackages = "com.undoschool.coursesearch.repository")
 public class ElasticsearchConfig extends ElasticsearchConfiguration {
 
+    private static final int DEFAULT_PORT = 9200;
+
+    // Comma-separated; requests are spread round-robin over the nodes that are not marked dead
     @Value("${spring.elasticsearch.uris}")
-    private String elasticsearchUrl;
+    private List<String> elasticsearchUris;
+
+    @Value("${course-search.elasticsearch.client.max-connections-per-route:64}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${course-search.elasticsearch.client.max-connections:128}")
+    private int maxConnections;
+
+    @Value("${course-search.elasticsearch.client.keep-alive:60s}")
+    private Duration keepAlive;
+
+    @Value("${course-search.elasticsearch.client.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${course-search.elasticsearch.client.socket-timeout:5s}")
+    private Duration socketTimeout;
+
+    @Value("${course-search.elasticsearch.client.compression:true}")
+    private boolean compression;
+
+    @Value("${course-search.suggest.weight:course-count}")
+    private SuggestWeight suggestWeight;
 
     @Override
     public ClientConfiguration clientConfiguration() {
-        return ClientConfiguration.builder()
-                .connectedTo(elasticsearchUrl.replace("http://", ""))
+        List<HttpHost> nodes = elasticsearchNodes();
+        PoolingNHttpClientConnectionManager connectionManager = elasticsearchConnectionManager();
+        ElasticsearchPoolMetrics poolMetrics = elasticsearchPoolMetrics();
+
+        ClientConfiguration.MaybeSecureClientConfigurationBuilder builder = ClientConfiguration.builder()
+                .connectedTo(nodes.stream().map(HttpHost::toHostString).toArray(String[]::new));
+        return (isSecure(nodes) ? builder.usingSsl() : builder)
+                .withConnectTimeout(connectTimeout)
+                .withSocketTimeout(socketTimeout)
+                .withClientConfigurer(ElasticsearchClients.ElasticsearchHttpClientConfigurationCallback.from(http -> http
+                        .setConnectionManager(connectionManager)
+                        .setKeepAliveStrategy(this::keepAliveMillis)))
+                .withClientConfigurer(ElasticsearchClients.ElasticsearchRestClientConfigurationCallback.from(rest -> rest
+                        .setCompressionEnabled(compression)
+                        .setFailureListener(new RestClient.FailureListener() {
+                            @Override
+                            public void onFailure(Node node) {
+                                log.warn("Elasticsearch node {} failed; routing to the other nodes until it answers again",
+                                        node.getHost().toHostString());
+                                poolMetrics.nodeFailed(node);
+                            }
+                        })))
                 .build();
     }
+
+    // Owned here rather than by the client builder so its pool stats can be exported; the client shuts it down,
+    // so no destroy method is inferred
+    @Bean(destroyMethod = "")
+    public PoolingNHttpClientConnectionManager elasticsearchConnectionManager() {
+        try {
+            IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                    .setConnectTimeout((int) connectTimeout.toMillis())
+                    .setSoTimeout((int) socketTimeout.toMillis())
+                    .setSoKeepAlive(true)
+                    .build();
+            Registry<SchemeIOSessionStrategy> schemes = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                    .register("https", SSLIOSessionStrategy.getSystemDefaultStrategy())
+                    .build();
+            PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(reactorConfig, Thread.ofPlatform().name("elasticsearch-io-", 1).daemon().factory()),
+                    schemes);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            connectionManager.setMaxTotal(maxConnections);
+            return connectionManager;
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("Could not start the Elasticsearch client I/O reactor", e);
+        }
+    }
+
+    @Bean
+    public ElasticsearchPoolMetrics elasticsearchPoolMetrics() {
+        return new ElasticsearchPoolMetrics(elasticsearchConnectionManager(), elasticsearchNodes());
+    }
+
+    private List<HttpHost> elasticsearchNodes() {
+        return elasticsearchUris.stream()
+                .map(String::trim)
+                .filter(uri -> !uri.isEmpty())
+                .map(uri -> URI.create(uri.contains("://") ? uri : "http://" + uri))
+                .map(uri -> new HttpHost(uri.getHost(), uri.getPort() != -1 ? uri.getPort() : DEFAULT_PORT, uri.getScheme()))
+                .toList();
+    }
+
+    private static boolean isSecure(List<HttpHost> nodes) {
+        Set<String> schemes = nodes.stream().map(HttpHost::getSchemeName).collect(Collectors.toSet());
+        if (schemes.size() > 1) {
+            throw new IllegalArgumentException("spring.elasticsearch.uris mixes " + schemes + " nodes");
+        }
+        return schemes.contains("https");
+    }
+
+    // The server's Keep-Alive hint if it sends a shorter one, so idle connections are dropped before the node closes them
+    private long keepAliveMillis(HttpResponse response, HttpContext context) {
+        long server = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return server > 0 ? Math.min(server, keepAlive.toMillis()) : keepAlive.toMillis();
+    }
+
+    // Times entity mapping separately from the search round trip, and writes the title completion field
+    @Bean
+    @Override
+    public ElasticsearchConverter elasticsearchEntityMapper(SimpleElasticsearchMappingContext elasticsearchMappingContext,
+                                                           ElasticsearchCustomConversions elasticsearchCustomConversions) {
+        TimedElasticsearchConverter converter = new TimedElasticsearchConverter(elasticsearchMappingContext, suggestWeight);
+        converter.setConversions(elasticsearchCustomConversions);
+        return converter;
+    }
+
+    // Report writes made through CourseRepository so caches and in-memory indexes stay in sync
+    @Bean
+    static BeanPostProcessor catalogChangeTracking(ObjectProvider<CatalogGeneration> catalogGeneration) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof ElasticsearchRepositoryFactoryBean<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) ->
+                                    proxyFactory.addAdvice(new CatalogChangeInterceptor(catalogGeneration))));
+                }
+                return bean;
+            }
+        };
+    }
 }
@@ -0,0 +1,19 @@
+package com.undoschool.coursesearch.config;
+
+import com.undoschool.coursesearch.admission.AdmissionControl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final AdmissionControl admissionControl;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionControl).addPathPatterns("/api/search", "/api/search/suggest");
+    }
+}
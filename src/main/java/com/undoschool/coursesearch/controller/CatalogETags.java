@@ -0,0 +1,89 @@
+package com.undoschool.coursesearch.controller;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.service.SearchRequestKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * ETags for search and suggest responses, derived from the normalized request and the catalog generation: a tag only
+ * matches while nothing was written to the catalog since it was issued. The generation counts from zero again on
+ * every start, so each tag also carries the process's start time.
+ * <p>
+ * Tags are weak: Tomcat does not gzip responses with a strong ETag, and If-None-Match compares weakly anyway.
+ */
+@Component
+public class CatalogETags {
+
+    private final CatalogGeneration catalogGeneration;
+    private final CacheControl cacheControl;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    public CatalogETags(CatalogGeneration catalogGeneration,
+                        @Value("${course-search.http.max-age:30s}") Duration maxAge) {
+        this.catalogGeneration = catalogGeneration;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+    }
+
+    public CacheControl cacheControl() {
+        return cacheControl;
+    }
+
+    // Read before searching: a write racing with the search then only retires the tag early
+    public String forSearch(SearchRequestKey key) {
+        return tag("search", key.toString());
+    }
+
+    // Weak comparison against If-None-Match, like WebRequest.checkNotModified, but without setting any header: the
+    // response only carries the tag when it is the current result
+    public boolean matches(WebRequest request, String eTag) {
+        String[] values = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return false;
+        }
+        String opaque = opaque(eTag);
+        for (String value : values) {
+            for (String candidate : value.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || opaque(tag).equals(opaque)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public String forSuggest(String query, String category, CourseDocument.CourseType type) {
+        String scope = (category == null || category.isBlank() ? "" : category.trim()) + " " + (type == null ? "" : type.name());
+        return tag("suggest", query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) + " " + scope);
+    }
+
+    private String tag(String endpoint, String request) {
+        long generation = catalogGeneration.current();
+        return "W/\"" + epoch + "-" + generation + "-" + digest(endpoint + " " + request) + "\"";
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,17 +1,29 @@
 package com.undoschool.coursesearch.controller;
 
 import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.BatchSearchItem;
 import com.undoschool.coursesearch.dto.CourseSearchRequest;
 import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.CourseFieldProjection;
+import com.undoschool.coursesearch.metrics.SearchMetrics;
+import com.undoschool.coursesearch.service.CourseExportService;
 import com.undoschool.coursesearch.service.CourseSearchService;
+import com.undoschool.coursesearch.service.SearchRequestKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 
 @Slf4j
 @RestController
@@ -21,9 +33,12 @@ import java.util.List;
 public class CourseSearchController {
 
     private final CourseSearchService courseSearchService;
+    private final CourseExportService courseExportService;
+    private final SearchMetrics searchMetrics;
+    private final CatalogETags catalogETags;
 
     @GetMapping("/search")
-    public ResponseEntity<CourseSearchResponse> searchCourses(
+    public ResponseEntity<MappingJacksonValue> searchCourses(
             @RequestParam(required = false) String q,
             @RequestParam(required = false) Integer minAge,
             @RequestParam(required = false) Integer maxAge,
@@ -34,10 +49,14 @@ public class CourseSearchController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(defaultValue = "upcoming") String sort,
             @RequestParam(defaultValue = "0") Integer page,
-            @RequestParam(defaultValue = "10") Integer size) {
+            @RequestParam(defaultValue = "10") Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String facets,
+            WebRequest webRequest) {
 
-        log.info("Received search request - q: {}, minAge: {}, maxAge: {}, category: {}, type: {}, minPrice: {}, maxPrice: {}, startDate: {}, sort: {}, page: {}, size: {}",
-                q, minAge, maxAge, category, type, minPrice, maxPrice, startDate, sort, page, size);
+        log.info("Received search request - q: {}, minAge: {}, maxAge: {}, category: {}, type: {}, minPrice: {}, maxPrice: {}, startDate: {}, sort: {}, page: {}, size: {}, cursor: {}, fields: {}, facets: {}",
+                q, minAge, maxAge, category, type, minPrice, maxPrice, startDate, sort, page, size, cursor != null, fields, facets);
 
         CourseSearchRequest request = CourseSearchRequest.builder()
                 .q(q)
@@ -51,27 +70,116 @@ public class CourseSearchController {
                 .sort(sort)
                 .page(page)
                 .size(size)
+                .cursor(cursor)
+                .fields(fields)
+                .facets(facets)
+                .endpoint(SearchMetrics.SEARCH)
                 .build();
+        searchMetrics.bindToResponse(searchMetrics.tags(request));
+
+        // Unchanged since the client's copy: answer 304 without searching. Cursor pages are not revalidated
+        String eTag = request.getCursor() == null ? catalogETags.forSearch(SearchRequestKey.of(request)) : null;
+        if (eTag != null && catalogETags.matches(webRequest, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(catalogETags.cacheControl()).build();
+        }
 
         CourseSearchResponse response = courseSearchService.searchCourses(request);
 
         log.info("Search completed - found {} total results, returning {} courses",
                 response.getTotal(), response.getCourses().size());
 
-        return ResponseEntity.ok(response);
+        // Serialize only the projected properties of each course
+        MappingJacksonValue body = new MappingJacksonValue(response);
+        CourseFieldProjection projection = CourseFieldProjection.parse(fields);
+        if (projection != null) {
+            body.setFilters(projection.filters());
+        }
+        // A stale fallback would otherwise be revalidated as current until the next catalog write
+        if (response.isStale()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(body);
+        }
+        return eTag != null
+                ? ResponseEntity.ok().eTag(eTag).cacheControl(catalogETags.cacheControl()).body(body)
+                : ResponseEntity.ok(body);
+    }
+
+    // Streams every match as one JSON document per line, flushed batch by batch
+    @GetMapping(value = "/search/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportCourses(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) CourseDocument.CourseType type,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(defaultValue = "upcoming") String sort,
+            @RequestParam(required = false) String fields) {
+
+        log.info("Received export request - q: {}, minAge: {}, maxAge: {}, category: {}, type: {}, minPrice: {}, maxPrice: {}, startDate: {}, sort: {}, fields: {}",
+                q, minAge, maxAge, category, type, minPrice, maxPrice, startDate, sort, fields);
+
+        CourseSearchRequest request = CourseSearchRequest.builder()
+                .q(q)
+                .minAge(minAge)
+                .maxAge(maxAge)
+                .category(category)
+                .type(type)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .startDate(startDate)
+                .sort(sort)
+                .fields(fields)
+                .endpoint(SearchMetrics.EXPORT)
+                .build();
+
+        // Reject bad fields before the response is committed
+        CourseFieldProjection.parse(fields);
+
+        StreamingResponseBody body = out -> courseExportService.exportCourses(request, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @PostMapping("/search/batch")
+    public ResponseEntity<List<BatchSearchItem>> searchBatch(@RequestBody List<CourseSearchRequest> requests) {
+        log.info("Received batch search request with {} searches", requests.size());
+
+        requests.stream().filter(Objects::nonNull).forEach(request -> request.setEndpoint(SearchMetrics.BATCH));
+        searchMetrics.bindToResponse(searchMetrics.batchTags());
+
+        List<BatchSearchItem> items = courseSearchService.searchBatch(requests);
+
+        log.info("Batch search completed - {} of {} searches failed",
+                items.stream().filter(item -> item.getResponse() == null).count(), items.size());
+
+        return ResponseEntity.ok(items);
     }
 
     // Assignment B: Autocomplete endpoint
     
     @GetMapping("/search/suggest")
-    public ResponseEntity<List<String>> getSuggestions(@RequestParam String q) {
-        log.info("Received suggestion request for query: {}", q);
+    public ResponseEntity<List<String>> getSuggestions(
+            @RequestParam String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) CourseDocument.CourseType type,
+            WebRequest webRequest) {
+        log.info("Received suggestion request for query: {} (category {}, type {})", q, category, type);
+
+        searchMetrics.bindToResponse(searchMetrics.tags(SearchMetrics.SUGGEST));
+
+        String eTag = catalogETags.forSuggest(q, category, type);
+        if (catalogETags.matches(webRequest, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(catalogETags.cacheControl()).build();
+        }
 
-        List<String> suggestions = courseSearchService.getSuggestions(q);
+        List<String> suggestions = courseSearchService.getSuggestions(q, category, type);
 
         log.info("Found {} suggestions for query: {}", suggestions.size(), q);
 
-        return ResponseEntity.ok(suggestions);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(catalogETags.cacheControl()).body(suggestions);
     }
 
     // Health check endpoint
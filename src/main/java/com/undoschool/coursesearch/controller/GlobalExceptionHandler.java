@@ -1,11 +1,15 @@
 package com.undoschool.coursesearch.controller;
 
+import com.undoschool.coursesearch.engine.InvalidSearchRequestException;
+import com.undoschool.coursesearch.engine.SearchBackendBusyException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.time.format.DateTimeParseException;
 import java.util.HashMap;
@@ -26,6 +30,16 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
     }
 
+    // Unknown paths, including actuator endpoints that are not granted or exposed
+    @ExceptionHandler(NoResourceFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleNoResource(NoResourceFoundException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "Not found");
+        response.put("message", "No endpoint " + e.getHttpMethod() + " /" + e.getResourcePath());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<Map<String, Object>> handleTypeMismatch(MethodArgumentTypeMismatchException e) {
         log.error("Type mismatch error", e);
@@ -37,6 +51,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    @ExceptionHandler(SearchBackendBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleBackendBusy(SearchBackendBusyException e) {
+        log.warn("Search rejected: {}", e.getMessage());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "Service busy");
+        response.put("message", e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
+
+    @ExceptionHandler(InvalidSearchRequestException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidSearchRequest(InvalidSearchRequestException e) {
+        log.warn("Invalid request: {}", e.getMessage());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", "Invalid request");
+        response.put("message", e.getMessage());
+
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
     @ExceptionHandler(DateTimeParseException.class)
     public ResponseEntity<Map<String, Object>> handleDateTimeParseException(DateTimeParseException e) {
         log.error("Date time parsing error", e);
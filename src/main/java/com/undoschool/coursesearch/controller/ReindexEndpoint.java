@@ -0,0 +1,39 @@
+package com.undoschool.coursesearch.controller;
+
+import com.undoschool.coursesearch.service.CourseReindexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code POST /actuator/reindex}. A reindex replaces the serving index, so the endpoint is off until it is granted
+ * ({@code management.endpoint.reindex.access=unrestricted}) and exposed, best on its own {@code management.server.port}.
+ */
+@Slf4j
+@Component
+@WebEndpoint(id = "reindex", defaultAccess = Access.NONE)
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "course-search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+public class ReindexEndpoint {
+
+    private final CourseReindexService courseReindexService;
+
+    // Rebuilds the catalog into a new index and swaps it in; returns once the new index is serving
+    @WriteOperation
+    public WebEndpointResponse<Object> reindex() {
+        if (courseReindexService.isRunning()) {
+            return new WebEndpointResponse<>(
+                    Map.of("error", "Reindex running", "message", "A reindex is already running"), 409);
+        }
+
+        log.info("Received reindex request");
+        return new WebEndpointResponse<>(courseReindexService.reindex());
+    }
+}
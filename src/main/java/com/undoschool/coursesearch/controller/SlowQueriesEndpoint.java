@@ -0,0 +1,36 @@
+package com.undoschool.coursesearch.controller;
+
+import com.undoschool.coursesearch.diagnostics.SlowQuery;
+import com.undoschool.coursesearch.diagnostics.SlowQueryLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code GET /actuator/slowqueries} lists the slow-query log, {@code DELETE} clears it. Entries hold users' query text
+ * and the backend queries, so the endpoint is off until it is granted ({@code read-only} to list,
+ * {@code unrestricted} to clear as well) and exposed, best on its own {@code management.server.port}.
+ */
+@Component
+@WebEndpoint(id = "slowqueries", defaultAccess = Access.NONE)
+@RequiredArgsConstructor
+public class SlowQueriesEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    // Recent searches over the slow-query threshold, newest first
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return slowQueryLog.entries();
+    }
+
+    @DeleteOperation
+    public void clearSlowQueries() {
+        slowQueryLog.clear();
+    }
+}
@@ -0,0 +1,38 @@
+package com.undoschool.coursesearch.diagnostics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.undoschool.coursesearch.engine.SearchProfile;
+import com.undoschool.coursesearch.service.SearchRequestKey;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A search that took longer than the slow-query threshold: its normalized request, the backend query and routing
+ * preference it sent, and how long it took. The profile is filled in later for the sampled ones, once the profiled run has come back.
+ */
+@Getter
+@RequiredArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SlowQuery {
+    private final long id;
+    private final Instant recordedAt;
+    private final SearchRequestKey request;
+    @JsonRawValue
+    private final String query;
+    private final String preference;
+    private final double latencyMillis;
+    private final long total;
+
+    // Elasticsearch's took and profile from the profiled run
+    private volatile Long profileTookMillis;
+    @JsonRawValue
+    private volatile String profile;
+
+    void profiled(SearchProfile searchProfile) {
+        profileTookMillis = searchProfile.tookMillis();
+        profile = searchProfile.json();
+    }
+}
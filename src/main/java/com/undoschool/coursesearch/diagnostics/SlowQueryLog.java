@@ -0,0 +1,138 @@
+package com.undoschool.coursesearch.diagnostics;
+
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import com.undoschool.coursesearch.engine.SearchProfile;
+import com.undoschool.coursesearch.service.SearchRequestKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the most recent searches that took longer than the threshold, with their normalized request, the backend
+ * query and the latency. A sampled fraction of them is run again with the backend's profiler on, one at a time and
+ * off the request thread, so a burst of slow searches never turns into a burst of profiled ones.
+ */
+@Slf4j
+@Component
+public class SlowQueryLog {
+
+    static final String SLOW_COUNTER = "course.search.slow";
+    static final String PROFILED_COUNTER = "course.search.slow.profiled";
+
+    private final CourseSearchEngine courseSearchEngine;
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final double profileSampleRate;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("slow-query-profile-", 0).factory());
+    private final AtomicBoolean profiling = new AtomicBoolean();
+    private final Counter slow;
+    private final Counter profiled;
+    private final SlowQuery[] entries;
+    private int next;
+    private long sequence;
+
+    public SlowQueryLog(CourseSearchEngine courseSearchEngine,
+                        MeterRegistry meterRegistry,
+                        @Value("${course-search.slow-query.enabled:true}") boolean enabled,
+                        @Value("${course-search.slow-query.threshold:500ms}") Duration threshold,
+                        @Value("${course-search.slow-query.capacity:100}") int capacity,
+                        @Value("${course-search.slow-query.profile-sample-rate:0.1}") double profileSampleRate) {
+        if (capacity < 1 || profileSampleRate < 0 || profileSampleRate > 1) {
+            throw new IllegalArgumentException("Slow-query log needs a capacity and a profile sample rate in [0, 1]");
+        }
+        this.courseSearchEngine = courseSearchEngine;
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        this.profileSampleRate = profileSampleRate;
+        this.entries = new SlowQuery[capacity];
+        this.slow = Counter.builder(SLOW_COUNTER)
+                .description("Searches slower than the slow-query threshold")
+                .register(meterRegistry);
+        this.profiled = Counter.builder(PROFILED_COUNTER)
+                .description("Slow searches run again with the backend profiler on")
+                .register(meterRegistry);
+    }
+
+    // Runs the search and records it when it succeeded above the threshold
+    public CourseSearchResponse time(SearchRequestKey key, CourseSearchRequest request, Supplier<CourseSearchResponse> search) {
+        if (!enabled) {
+            return search.get();
+        }
+        long started = System.nanoTime();
+        CourseSearchResponse response = search.get();
+        long elapsed = System.nanoTime() - started;
+        if (elapsed > thresholdNanos) {
+            record(key, request, response, elapsed);
+        }
+        return response;
+    }
+
+    // Newest first
+    public synchronized List<SlowQuery> entries() {
+        List<SlowQuery> recent = new ArrayList<>(entries.length);
+        for (int i = 1; i <= entries.length; i++) {
+            SlowQuery entry = entries[Math.floorMod(next - i, entries.length)];
+            if (entry == null) {
+                break;
+            }
+            recent.add(entry);
+        }
+        return recent;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(entries, null);
+        next = 0;
+    }
+
+    private void record(SearchRequestKey key, CourseSearchRequest request, CourseSearchResponse response, long elapsed) {
+        slow.increment();
+        log.warn("Slow search took {} ms: {}", elapsed / 1_000_000, key);
+        // The preference of the attempt that answered, so a hedge is logged and profiled as it was sent
+        String preference = response.getPreference();
+        SlowQuery entry = add(key, courseSearchEngine.queryJson(request, preference), preference,
+                elapsed / 1e6, response.getTotal());
+
+        // Only one profiled run at a time; a sample that finds one running is skipped
+        if (ThreadLocalRandom.current().nextDouble() >= profileSampleRate || !profiling.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                SearchProfile searchProfile = courseSearchEngine.profile(request, preference);
+                if (searchProfile != null) {
+                    entry.profiled(searchProfile);
+                    profiled.increment();
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not profile slow search {}", key, e);
+            } finally {
+                profiling.set(false);
+            }
+        });
+    }
+
+    private synchronized SlowQuery add(SearchRequestKey key, String query, String preference, double latencyMillis,
+                                       long total) {
+        SlowQuery entry = new SlowQuery(++sequence, Instant.now(), key, query, preference, latencyMillis, total);
+        entries[next] = entry;
+        next = (next + 1) % entries.length;
+        return entry;
+    }
+}
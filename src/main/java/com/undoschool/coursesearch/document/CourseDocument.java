@@ -1,5 +1,7 @@
 package com.undoschool.coursesearch.document;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.undoschool.coursesearch.engine.CourseFieldProjection;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,9 +15,10 @@ import java.time.Instant;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Document(indexName = "courses")
+@Document(indexName = "courses", createIndex = false) // an alias onto courses_vN, created by CourseIndexManager
 @Setting(settingPath = "elasticsearch/course-settings.json")
 @Mapping(mappingPath = "elasticsearch/course-mapping.json")
+@JsonFilter(CourseFieldProjection.FILTER_ID) // serializes everything unless a search projects fields
 public class CourseDocument {
 
     @Id
@@ -0,0 +1,70 @@
+package com.undoschool.coursesearch.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.undoschool.coursesearch.engine.CourseFieldProjection;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+
+/**
+ * One entry of a batch search: the response with status 200, or the status and error of a search that failed
+ * on its own while the rest of the batch went through.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonSerialize(using = BatchSearchItem.Serializer.class)
+public class BatchSearchItem {
+    private int status;
+    private CourseSearchResponse response;
+    private String error;
+    private String message;
+
+    // fields parameter of the request, so each item serializes its own projection
+    @JsonIgnore
+    private String fields;
+
+    public static BatchSearchItem of(CourseSearchResponse response) {
+        return BatchSearchItem.builder().status(200).response(response).build();
+    }
+
+    public static BatchSearchItem failed(int status, String error, String message) {
+        return BatchSearchItem.builder().status(status).error(error).message(message).build();
+    }
+
+    static class Serializer extends StdSerializer<BatchSearchItem> {
+
+        Serializer() {
+            super(BatchSearchItem.class);
+        }
+
+        @Override
+        public void serialize(BatchSearchItem item, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeNumberField("status", item.getStatus());
+            if (item.getResponse() != null) {
+                gen.writeFieldName("response");
+                CourseFieldProjection projection = CourseFieldProjection.parse(item.getFields());
+                if (projection != null && gen.getCodec() instanceof ObjectMapper mapper) {
+                    mapper.writer(projection.filters()).writeValue(gen, item.getResponse());
+                } else {
+                    provider.defaultSerializeValue(item.getResponse(), gen);
+                }
+            }
+            if (item.getError() != null) {
+                gen.writeStringField("error", item.getError());
+                gen.writeStringField("message", item.getMessage());
+            }
+            gen.writeEndObject();
+        }
+    }
+}
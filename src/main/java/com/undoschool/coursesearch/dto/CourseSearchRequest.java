@@ -1,5 +1,6 @@
 package com.undoschool.coursesearch.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.undoschool.coursesearch.document.CourseDocument;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -24,6 +25,12 @@ public class CourseSearchRequest {
     private String sort; // upcoming, priceAsc, priceDesc
     private Integer page;
     private Integer size;
+    private String cursor; // cursor paging: empty for the first page, then the previous nextCursor
+    private String fields; // projection: "id,title,price" or "-description,-titleSuggest"
+    private String facets; // category, type, price, age, upcoming
+
+    @JsonIgnore
+    private String endpoint; // metrics tag, set by the controller; not part of the search
 
     // Default values
     public Integer getPage() {
@@ -1,5 +1,7 @@
 package com.undoschool.coursesearch.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.undoschool.coursesearch.document.CourseDocument;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -7,6 +9,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -15,4 +18,20 @@ import java.util.List;
 public class CourseSearchResponse {
     private long total;
     private List<CourseDocument> courses;
+
+    // Only set in cursor mode while more results remain
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    // Buckets per requested facet, counted over every hit rather than the page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, List<FacetBucket>> facets;
+
+    // A last good copy served while the backend is failing: it must not be revalidated or cached by clients
+    @JsonIgnore
+    private boolean stale;
+
+    // The routing preference of the search that answered, if it had one (a hedge)
+    @JsonIgnore
+    private String preference;
 }
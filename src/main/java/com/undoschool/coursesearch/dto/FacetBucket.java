@@ -0,0 +1,15 @@
+package com.undoschool.coursesearch.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetBucket {
+    private String key;
+    private long count;
+}
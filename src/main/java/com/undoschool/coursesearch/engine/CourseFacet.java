@@ -0,0 +1,66 @@
+package com.undoschool.coursesearch.engine;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Facets a search can return alongside its hits, requested by name through the {@code facets} parameter.
+ * Bucket definitions are shared so that every engine counts the same buckets.
+ */
+public enum CourseFacet {
+    CATEGORY, TYPE, PRICE, AGE, UPCOMING;
+
+    // Term buckets returned for category and type, most frequent first
+    public static final int TERMS_SIZE = 50;
+
+    public static final double PRICE_INTERVAL = 50;
+
+    // Bands count every course whose age range overlaps them, like the minAge/maxAge filters
+    public static final List<AgeBand> AGE_BANDS = List.of(
+            new AgeBand("3-5", 3, 5),
+            new AgeBand("6-8", 6, 8),
+            new AgeBand("9-11", 9, 11),
+            new AgeBand("12-14", 12, 14),
+            new AgeBand("15-18", 15, 18)
+    );
+
+    // Upcoming sessions are bucketed by calendar month
+    public static final String MONTH_FORMAT = "yyyy-MM";
+    public static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern(MONTH_FORMAT).withZone(ZoneOffset.UTC);
+
+    public record AgeBand(String key, int minAge, int maxAge) {
+    }
+
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static Set<CourseFacet> parse(String facets) {
+        Set<CourseFacet> parsed = EnumSet.noneOf(CourseFacet.class);
+        if (facets == null) {
+            return parsed;
+        }
+        for (String entry : facets.split(",")) {
+            String name = entry.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            try {
+                parsed.add(valueOf(name.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidSearchRequestException("Unknown facet: " + name);
+            }
+        }
+        return parsed;
+    }
+
+    // Lower bound of a price bucket, without trailing zeros ("50", "12.5")
+    public static String priceKey(double lowerBound) {
+        return BigDecimal.valueOf(lowerBound).stripTrailingZeros().toPlainString();
+    }
+}
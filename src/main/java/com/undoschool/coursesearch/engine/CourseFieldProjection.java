@@ -0,0 +1,98 @@
+package com.undoschool.coursesearch.engine;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.undoschool.coursesearch.document.CourseDocument;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.BeanUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Subset of {@link CourseDocument} properties a search should return, parsed from the {@code fields}
+ * parameter: a comma-separated list of names to include, and/or {@code -name} entries to exclude.
+ */
+@EqualsAndHashCode
+public final class CourseFieldProjection {
+
+    // Name of the Jackson filter on CourseDocument that serializes only the projected properties
+    public static final String FILTER_ID = "courseFields";
+
+    private static final List<String> ALL_FIELDS = Arrays.stream(CourseDocument.class.getDeclaredFields())
+            .filter(field -> !Modifier.isStatic(field.getModifiers()))
+            .map(Field::getName)
+            .toList();
+
+    private final Set<String> fields;
+
+    private CourseFieldProjection(Set<String> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+    }
+
+    // Blank means the whole document and returns null
+    public static CourseFieldProjection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> includes = new LinkedHashSet<>();
+        Set<String> excludes = new LinkedHashSet<>();
+        for (String entry : fields.split(",")) {
+            String name = entry.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            boolean exclude = name.startsWith("-");
+            if (exclude) {
+                name = name.substring(1).trim();
+            }
+            if (!ALL_FIELDS.contains(name)) {
+                throw new InvalidSearchRequestException("Unknown field: " + name);
+            }
+            (exclude ? excludes : includes).add(name);
+        }
+
+        // Keep declaration order so equal projections compare equal and serialize alike
+        Set<String> projected = new LinkedHashSet<>();
+        for (String name : ALL_FIELDS) {
+            if ((includes.isEmpty() || includes.contains(name)) && !excludes.contains(name)) {
+                projected.add(name);
+            }
+        }
+        return projected.size() == ALL_FIELDS.size() ? null : new CourseFieldProjection(projected);
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    // _source includes for Elasticsearch
+    public String[] includes() {
+        return fields.toArray(String[]::new);
+    }
+
+    // Copy of the document with every other property left null
+    public CourseDocument project(CourseDocument course) {
+        CourseDocument projected = new CourseDocument();
+        BeanUtils.copyProperties(course, projected, ALL_FIELDS.stream()
+                .filter(name -> !fields.contains(name))
+                .toArray(String[]::new));
+        return projected;
+    }
+
+    // Jackson filters that serialize only the projected properties of each CourseDocument
+    public FilterProvider filters() {
+        return new SimpleFilterProvider().addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields));
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", fields);
+    }
+}
@@ -0,0 +1,212 @@
+package com.undoschool.coursesearch.engine;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import co.elastic.clients.elasticsearch.cluster.HealthResponse;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexInformation;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.index.AliasData;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Versioned course indices behind a read alias. {@link CourseDocument}'s index name ({@code courses}) is an alias
+ * onto {@code courses_vN}; a reindex builds the next version next to it and swaps the alias in one atomic request,
+ * so searches and writes through the repository never see a half-built index.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "course-search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+public class CourseIndexManager {
+
+    private static final String[] WARMUP_SORTS = {"upcoming", "priceAsc", "priceDesc"};
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchCourseSearchEngine elasticsearchCourseSearchEngine;
+    private final String alias;
+    private final Pattern versionPattern;
+    private final String refreshInterval;
+    private final int replicas;
+    private final Duration healthTimeout;
+    private final int warmupRounds;
+
+    public CourseIndexManager(ElasticsearchOperations elasticsearchOperations,
+                              ElasticsearchClient elasticsearchClient,
+                              ElasticsearchCourseSearchEngine elasticsearchCourseSearchEngine,
+                              @Value("${course-search.reindex.refresh-interval:1s}") String refreshInterval,
+                              @Value("${course-search.reindex.replicas:1}") int replicas,
+                              @Value("${course-search.reindex.health-timeout:2m}") Duration healthTimeout,
+                              @Value("${course-search.reindex.warmup-rounds:3}") int warmupRounds) {
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchCourseSearchEngine = elasticsearchCourseSearchEngine;
+        this.alias = elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class).getIndexName();
+        this.versionPattern = Pattern.compile(Pattern.quote(alias) + "_v(\\d+)");
+        this.refreshInterval = refreshInterval;
+        this.replicas = replicas;
+        this.healthTimeout = healthTimeout;
+        this.warmupRounds = warmupRounds;
+    }
+
+    // A fresh cluster gets courses_v1 behind the alias; an existing alias or pre-alias index is left as it is
+    @PostConstruct
+    public void ensureServingIndex() {
+        if (indexOps(alias).exists()) {
+            return;
+        }
+        String index = versionName(1);
+        indexOps(index).create(settings(servingSettings()), indexOps(index).createMapping(CourseDocument.class));
+        indexOps(index).alias(new AliasActions(new AliasAction.Add(aliasParameters(index))));
+        log.info("Created index {} behind alias {}", index, alias);
+    }
+
+    public String alias() {
+        return alias;
+    }
+
+    // The indices the alias points at; for a catalog indexed before aliases, the concrete index of the same name
+    public Set<String> servingIndices() {
+        Map<String, Set<AliasData>> aliases = indexOps(alias).getAliases(alias);
+        return aliases.isEmpty() && indexOps(alias).exists() ? Set.of(alias) : aliases.keySet();
+    }
+
+    // Versioned indices, oldest first
+    public List<String> versions() {
+        return indexOps(alias + "_v*").getInformation().stream()
+                .map(IndexInformation::getName)
+                .filter(name -> versionPattern.matcher(name).matches())
+                .sorted(Comparator.comparingInt(this::version))
+                .toList();
+    }
+
+    // The next version, created for bulk loading: no refreshes and no replicas to copy every write to
+    public String createIngestIndex() {
+        List<String> versions = versions();
+        String index = versionName(versions.isEmpty() ? 1 : version(versions.get(versions.size() - 1)) + 1);
+        Settings ingest = new Settings()
+                .append("index.refresh_interval", "-1")
+                .append("index.number_of_replicas", 0);
+        indexOps(index).create(settings(ingest), indexOps(index).createMapping(CourseDocument.class));
+        log.info("Created index {} for ingest", index);
+        return index;
+    }
+
+    // Writes straight to the index, bypassing the repository: nothing is serving from it yet
+    public void bulkIndex(String index, List<CourseDocument> courses) {
+        elasticsearchOperations.save(courses, IndexCoordinates.of(index));
+    }
+
+    // Restores the serving settings, waits for the shards, warms caches with the common query shapes; returns the count
+    public long prepareForServing(String index) {
+        try {
+            elasticsearchClient.indices().putSettings(p -> p
+                    .index(index)
+                    .settings(s -> s
+                            .refreshInterval(t -> t.time(refreshInterval))
+                            .numberOfReplicas(String.valueOf(replicas))));
+            indexOps(index).refresh();
+
+            // Replicas cannot be placed on a single node, so yellow (all primaries active) is the bar
+            HealthResponse health = elasticsearchClient.cluster().health(h -> h
+                    .index(index)
+                    .waitForStatus(HealthStatus.Yellow)
+                    .timeout(t -> t.time(healthTimeout.toSeconds() + "s")));
+            if (health.timedOut()) {
+                throw new IllegalStateException("Index " + index + " is still " + health.status() + " after " + healthTimeout);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        IndexCoordinates coordinates = IndexCoordinates.of(index);
+        for (int round = 0; round < warmupRounds; round++) {
+            for (String sort : WARMUP_SORTS) {
+                CourseSearchRequest request = CourseSearchRequest.builder()
+                        .sort(sort)
+                        .facets("category,type,price,age,upcoming")
+                        .build();
+                elasticsearchOperations.search(elasticsearchCourseSearchEngine.buildSearchQuery(request), CourseDocument.class, coordinates);
+            }
+        }
+        return elasticsearchOperations.count(Query.findAll(), CourseDocument.class, coordinates);
+    }
+
+    // One alias request: the alias moves off the old indices (or replaces a pre-alias index) and onto the new one
+    public void swap(String index) {
+        Set<String> serving = servingIndices();
+        AliasActions actions = new AliasActions();
+        if (serving.contains(alias)) {
+            actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder().withIndices(alias).build()));
+        } else if (!serving.isEmpty()) {
+            actions.add(new AliasAction.Remove(AliasActionParameters.builder()
+                    .withIndices(serving.toArray(String[]::new))
+                    .withAliases(alias)
+                    .build()));
+        }
+        actions.add(new AliasAction.Add(aliasParameters(index)));
+        indexOps(index).alias(actions);
+        log.info("Alias {} moved from {} to {}", alias, serving, index);
+    }
+
+    public void delete(String index) {
+        indexOps(index).delete();
+        log.info("Deleted index {}", index);
+    }
+
+    private Settings servingSettings() {
+        return new Settings()
+                .append("index.refresh_interval", refreshInterval)
+                .append("index.number_of_replicas", replicas);
+    }
+
+    // Analysis settings from course-settings.json plus the given index settings
+    private Settings settings(Settings overrides) {
+        Settings settings = indexOps(alias).createSettings(CourseDocument.class);
+        settings.merge(overrides);
+        return settings;
+    }
+
+    private AliasActionParameters aliasParameters(String index) {
+        return AliasActionParameters.builder()
+                .withIndices(index)
+                .withAliases(alias)
+                .withIsWriteIndex(true)
+                .build();
+    }
+
+    private IndexOperations indexOps(String index) {
+        return elasticsearchOperations.indexOps(IndexCoordinates.of(index));
+    }
+
+    private String versionName(int version) {
+        return alias + "_v" + version;
+    }
+
+    private int version(String index) {
+        Matcher matcher = versionPattern.matcher(index);
+        return matcher.matches() ? Integer.parseInt(matcher.group(1)) : 0;
+    }
+}
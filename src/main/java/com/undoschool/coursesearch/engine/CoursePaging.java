@@ -0,0 +1,39 @@
+package com.undoschool.coursesearch.engine;
+
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+
+/**
+ * Paging limits shared by all engines, checked before a search runs so that every engine rejects the same requests.
+ * Page windows end within Elasticsearch's default {@code max_result_window}; deeper results are read with a cursor.
+ */
+public final class CoursePaging {
+
+    public static final int MAX_RESULT_WINDOW = 10_000;
+
+    private CoursePaging() {
+    }
+
+    // A cursor page looks one hit past its size to tell whether another page follows; a page of the whole window cannot
+    public static int cursorFetchSize(int size) {
+        return Math.min(size + 1, MAX_RESULT_WINDOW);
+    }
+
+    // Cursor pages ignore the page number, so only the size is checked for them
+    public static void validate(CourseSearchRequest request) {
+        int size = request.getSize();
+        if (size < 1 || size > MAX_RESULT_WINDOW) {
+            throw new InvalidSearchRequestException("size must be between 1 and " + MAX_RESULT_WINDOW);
+        }
+        if (request.getCursor() != null) {
+            return;
+        }
+        int page = request.getPage();
+        if (page < 0) {
+            throw new InvalidSearchRequestException("page must not be negative");
+        }
+        if (((long) page + 1) * size > MAX_RESULT_WINDOW) {
+            throw new InvalidSearchRequestException(
+                    "page and size reach past result " + MAX_RESULT_WINDOW + "; use cursor paging for deeper results");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.undoschool.coursesearch.engine;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.BatchSearchItem;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Backend that stores the course catalog and answers search and suggest queries.
+ * The implementation is selected with {@code course-search.engine} ({@code elasticsearch} or {@code memory}).
+ */
+public interface CourseSearchEngine {
+
+    CourseSearchResponse search(CourseSearchRequest request);
+
+    // Same search routed by an Elasticsearch preference string, so a retry can land on other shard copies
+    default CourseSearchResponse search(CourseSearchRequest request, String preference) {
+        return search(request);
+    }
+
+    // Several searches in one round trip; a search that fails does not fail the others
+    default List<BatchSearchItem> searchBatch(List<CourseSearchRequest> requests) {
+        List<BatchSearchItem> items = new ArrayList<>(requests.size());
+        for (CourseSearchRequest request : requests) {
+            try {
+                items.add(BatchSearchItem.of(search(request)));
+            } catch (InvalidSearchRequestException e) {
+                items.add(BatchSearchItem.failed(400, "Invalid request", e.getMessage()));
+            } catch (RuntimeException e) {
+                items.add(BatchSearchItem.failed(500, "Search failed", e.getMessage()));
+            }
+        }
+        return items;
+    }
+
+    // The request body search(request, preference) sends to the backend, as JSON; null for engines without a query language
+    default String queryJson(CourseSearchRequest request, String preference) {
+        return null;
+    }
+
+    // Runs search(request, preference) again with the backend's profiler on; null for engines that cannot profile
+    default SearchProfile profile(CourseSearchRequest request, String preference) {
+        return null;
+    }
+
+    default List<String> suggest(String query, int limit) {
+        return suggest(query, null, null, limit);
+    }
+
+    // Suggestions among courses of the given category and type; null means any
+    List<String> suggest(String query, String category, CourseDocument.CourseType type, int limit);
+
+    long count();
+
+    // Identifies the stored catalog across restarts and changes with every write; null for engines that keep nothing
+    default String catalogVersion() {
+        return null;
+    }
+
+    // Every indexed document; callers must close the stream
+    Stream<CourseDocument> streamAll();
+
+    // The indexed documents among ids, in no particular order; unknown ids are skipped
+    List<CourseDocument> findAllById(Collection<String> ids);
+
+    void saveAll(List<CourseDocument> courses);
+
+    // Bulk write for ingest: documents may only become searchable after refresh()
+    default void bulkIndex(List<CourseDocument> courses) {
+        saveAll(courses);
+    }
+
+    // Bulk delete for incremental sync: documents may only disappear from searches after refresh()
+    void bulkDelete(Collection<String> ids);
+
+    default void refresh() {
+    }
+
+    void deleteAll();
+}
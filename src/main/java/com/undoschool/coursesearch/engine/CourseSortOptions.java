@@ -0,0 +1,56 @@
+package com.undoschool.coursesearch.engine;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Maps the public sort names (upcoming, priceAsc, priceDesc) to sort orders shared by all engines.
+ */
+public final class CourseSortOptions {
+
+    // Appended in cursor mode so that every hit has a unique sort position
+    public static final Sort TIEBREAKER = Sort.by(Sort.Direction.ASC, "id");
+
+    private static final Map<String, Function<CourseDocument, Comparable<?>>> SORTABLE_FIELDS = Map.of(
+            "price", CourseDocument::getPrice,
+            "nextSessionDate", CourseDocument::getNextSessionDate,
+            "id", CourseDocument::getId
+    );
+
+    private CourseSortOptions() {
+    }
+
+    public static Sort getSortOptions(String sortType) {
+        switch (sortType.toLowerCase()) {
+            case "priceasc":
+                return Sort.by(Sort.Direction.ASC, "price");
+            case "pricedesc":
+                return Sort.by(Sort.Direction.DESC, "price");
+            case "upcoming":
+            default:
+                return Sort.by(Sort.Direction.ASC, "nextSessionDate");
+        }
+    }
+
+    // Same ordering Elasticsearch applies: documents missing the sort field go last in either direction
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Comparator<CourseDocument> comparator(Sort sort) {
+        Comparator<CourseDocument> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Function<CourseDocument, Comparable<?>> field = SORTABLE_FIELDS.get(order.getProperty());
+            if (field == null) {
+                throw new IllegalArgumentException("Unsupported sort field: " + order.getProperty());
+            }
+            Comparator<Comparable> direction = order.isAscending()
+                    ? Comparator.naturalOrder()
+                    : Comparator.reverseOrder();
+            comparator = comparator.thenComparing(
+                    course -> (Comparable) field.apply(course), Comparator.nullsLast(direction));
+        }
+        return comparator;
+    }
+}
@@ -0,0 +1,737 @@
+package com.undoschool.coursesearch.engine;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Level;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.DateRangeQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.NumberRangeQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultisearchBody;
+import co.elastic.clients.elasticsearch.core.msearch.RequestItem;
+import co.elastic.clients.elasticsearch.core.search.CompletionContext;
+import co.elastic.clients.elasticsearch.core.search.CompletionSuggestOption;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.SourceConfig;
+import co.elastic.clients.elasticsearch.core.search.Suggestion;
+import co.elastic.clients.elasticsearch.indices.GetFieldMappingResponse;
+import co.elastic.clients.elasticsearch.indices.IndicesStatsResponse;
+import co.elastic.clients.elasticsearch.indices.stats.ShardStats;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpUtils;
+import com.undoschool.coursesearch.catalog.CatalogChangedEvent;
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.BatchSearchItem;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.dto.FacetBucket;
+import com.undoschool.coursesearch.metrics.SearchMetrics;
+import com.undoschool.coursesearch.repository.CourseRepository;
+import com.undoschool.coursesearch.suggest.SuggestWeight;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.elasticsearch.core.query.Query.PointInTime;
+import org.springframework.data.elasticsearch.core.query.SourceFilter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "course-search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+public class ElasticsearchCourseSearchEngine implements CourseSearchEngine {
+
+    private static final String TITLE_SUGGESTER = "titles";
+    private static final String TITLE_KEYWORD = "title.keyword";
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final ElasticsearchClient elasticsearchClient;
+    private final CourseRepository courseRepository;
+    private final CatalogGeneration catalogGeneration;
+    private final InFlightLimiter inFlightLimiter;
+    private final SearchMetrics searchMetrics;
+
+    @Value("${course-search.cursor.keep-alive:1m}")
+    private Duration cursorKeepAlive;
+
+    @Value("${course-search.suggest.weight:course-count}")
+    private SuggestWeight suggestWeight;
+
+    // Completion matches asked for, at least the limit: several courses can share one title
+    @Value("${course-search.suggest.candidates:32}")
+    private int suggestCandidates;
+
+    // Whether every serving index maps titleCompletion; null until checked, and again after the catalog is replaced
+    private volatile Boolean completionMapped;
+
+    @Override
+    public CourseSearchResponse search(CourseSearchRequest request) {
+        return search(request, null);
+    }
+
+    // Point-in-time searches pin their shard copies, so cursor pages ignore the preference
+    @Override
+    public CourseSearchResponse search(CourseSearchRequest request, String preference) {
+        if (request.getCursor() != null) {
+            return searchWithCursor(request);
+        }
+
+        Tags tags = searchMetrics.tags(request);
+
+        // Build the query
+        NativeQuery searchQuery = searchMetrics.time(SearchMetrics.BUILD, tags, () -> buildSearchQuery(request));
+        if (preference != null) {
+            searchQuery.setPreference(preference);
+        }
+
+        // Execute search
+        SearchHits<CourseDocument> searchHits = timedSearch(searchQuery, tags);
+
+        // Extract results
+        List<CourseDocument> courses = searchHits.getSearchHits()
+                .stream()
+                .map(SearchHit::getContent)
+                .collect(Collectors.toList());
+
+        return CourseSearchResponse.builder()
+                .total(searchHits.getTotalHits())
+                .courses(courses)
+                .facets(readFacets(request, searchHits))
+                .preference(preference)
+                .build();
+    }
+
+    // Spring Data maps hits to entities inside the call: that part is recorded as mapping, the rest as the round trip
+    private SearchHits<CourseDocument> timedSearch(NativeQuery searchQuery, Tags tags) {
+        return inFlightLimiter.call(() -> {
+            long readBefore = TimedElasticsearchConverter.readNanos();
+            long started = System.nanoTime();
+            SearchHits<CourseDocument> searchHits = elasticsearchOperations.search(searchQuery, CourseDocument.class);
+            long mapping = TimedElasticsearchConverter.readNanos() - readBefore;
+            searchMetrics.record(SearchMetrics.BACKEND, tags, System.nanoTime() - started - mapping);
+            searchMetrics.record(SearchMetrics.MAPPING, tags, mapping);
+            searchMetrics.recordTook(tags, searchHits.getExecutionDuration());
+            return searchHits;
+        });
+    }
+
+    private CourseSearchResponse searchWithCursor(CourseSearchRequest request) {
+        CoursePaging.validate(request);
+        SearchCursor cursor = SearchCursor.decode(request.getCursor());
+        String pointInTimeId = cursor != null && cursor.getPointInTimeId() != null
+                ? cursor.getPointInTimeId()
+                : inFlightLimiter.call(() -> elasticsearchOperations.openPointInTime(
+                        elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class), cursorKeepAlive));
+
+        Tags tags = searchMetrics.tags(request);
+        NativeQuery searchQuery = searchMetrics.time(SearchMetrics.BUILD, tags,
+                () -> buildCursorQuery(request, pointInTimeId, cursor != null ? cursor.getSearchAfter() : null));
+        SearchHits<CourseDocument> searchHits = timedSearch(searchQuery, tags);
+
+        List<SearchHit<CourseDocument>> hits = searchHits.getSearchHits();
+        // Elasticsearch may hand back a new id for the same point-in-time
+        String nextPointInTimeId = searchHits.getPointInTimeId() != null ? searchHits.getPointInTimeId() : pointInTimeId;
+        String nextCursor = null;
+        if (hits.size() == CoursePaging.cursorFetchSize(request.getSize())) {
+            hits = hits.subList(0, Math.min(hits.size(), request.getSize()));
+            List<Object> lastSortValues = hits.get(hits.size() - 1).getSortValues();
+            nextCursor = new SearchCursor(nextPointInTimeId, lastSortValues).encode();
+        } else {
+            elasticsearchOperations.closePointInTime(nextPointInTimeId);
+        }
+
+        return CourseSearchResponse.builder()
+                .total(searchHits.getTotalHits())
+                .courses(hits.stream().map(SearchHit::getContent).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .facets(cursor == null ? readFacets(request, searchHits) : null)
+                .build();
+    }
+
+    // A single _msearch round trip; items that fail in Elasticsearch come back with its status and reason.
+    // Spring Data's multiSearch drops failed items, so the raw client is used and hits are mapped here.
+    @Override
+    public List<BatchSearchItem> searchBatch(List<CourseSearchRequest> requests) {
+        Tags tags = searchMetrics.batchTags();
+        long buildStarted = System.nanoTime();
+        BatchSearchItem[] items = new BatchSearchItem[requests.size()];
+        List<Integer> sent = new ArrayList<>();
+        List<RequestItem> searches = new ArrayList<>();
+        String index = elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class).getIndexName();
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                MultisearchBody body = buildMultisearchBody(requests.get(i));
+                searches.add(RequestItem.of(r -> r.header(h -> h.index(index)).body(body)));
+                sent.add(i);
+            } catch (InvalidSearchRequestException e) {
+                items[i] = BatchSearchItem.failed(400, "Invalid request", e.getMessage());
+            }
+        }
+        searchMetrics.record(SearchMetrics.BUILD, tags, System.nanoTime() - buildStarted);
+        if (searches.isEmpty()) {
+            return Arrays.asList(items);
+        }
+
+        MsearchResponse<Map> multiSearchResponse;
+        try {
+            multiSearchResponse = inFlightLimiter.call(
+                    () -> searchMetrics.time(SearchMetrics.BACKEND, tags, () -> multiSearch(searches)));
+        } catch (SearchBackendBusyException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.error("Multi-search of {} requests failed", searches.size(), e);
+            sent.forEach(i -> items[i] = BatchSearchItem.failed(500, "Search failed", e.getMessage()));
+            return Arrays.asList(items);
+        }
+
+        searchMetrics.recordTook(tags, Duration.ofMillis(multiSearchResponse.took()));
+
+        long mappingStarted = System.nanoTime();
+        List<MultiSearchResponseItem<Map>> responses = multiSearchResponse.responses();
+        for (int j = 0; j < sent.size(); j++) {
+            MultiSearchResponseItem<Map> response = responses.get(j);
+            int i = sent.get(j);
+            if (response.isFailure()) {
+                items[i] = BatchSearchItem.failed(response.failure().status(),
+                        response.failure().error().type(), response.failure().error().reason());
+                continue;
+            }
+            MultiSearchItem<Map> result = response.result();
+            items[i] = BatchSearchItem.of(CourseSearchResponse.builder()
+                    .total(result.hits().total() != null ? result.hits().total().value() : result.hits().hits().size())
+                    .courses(result.hits().hits().stream().map(this::readHit).collect(Collectors.toList()))
+                    .facets(readFacets(requests.get(i), result.aggregations()))
+                    .build());
+        }
+        searchMetrics.record(SearchMetrics.MAPPING, tags, System.nanoTime() - mappingStarted);
+        return Arrays.asList(items);
+    }
+
+    private MsearchResponse<Map> multiSearch(List<RequestItem> searches) {
+        try {
+            return elasticsearchClient.msearch(m -> m.searches(searches), Map.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Same request as searchRequest, in the shape of an _msearch body. Total hits are tracked the same way too: batch
+    // items are cached under the same keys as single searches, so both must report the same total.
+    MultisearchBody buildMultisearchBody(CourseSearchRequest request) {
+        NativeQuery query = buildSearchQuery(request);
+        MultisearchBody.Builder body = new MultisearchBody.Builder()
+                .query(query.getQuery())
+                .from(request.getPage() * request.getSize())
+                .size(request.getSize())
+                .aggregations(query.getAggregations())
+                .sort(sortOptions(query));
+        if (query.getTrackTotalHits() != null) {
+            body.trackTotalHits(t -> t.enabled(query.getTrackTotalHits()));
+        }
+        SourceConfig source = sourceConfig(query);
+        if (source != null) {
+            body.source(source);
+        }
+        return body.build();
+    }
+
+    // The request search(request, preference) sends, in the form Spring Data converts its NativeQuery to: total hits
+    // are only tracked when the query asks, so Elasticsearch counts up to its default of 10,000
+    SearchRequest.Builder searchRequest(CourseSearchRequest request, String preference) {
+        NativeQuery query = buildSearchQuery(request);
+        SearchRequest.Builder search = new SearchRequest.Builder()
+                .index(elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class).getIndexName())
+                .query(query.getQuery())
+                .from(request.getPage() * request.getSize())
+                .size(request.getSize())
+                .aggregations(query.getAggregations())
+                .sort(sortOptions(query))
+                .preference(preference);
+        if (query.getTrackTotalHits() != null) {
+            search.trackTotalHits(t -> t.enabled(query.getTrackTotalHits()));
+        }
+        SourceConfig source = sourceConfig(query);
+        if (source != null) {
+            search.source(source);
+        }
+        return search;
+    }
+
+    private static List<SortOptions> sortOptions(NativeQuery query) {
+        return query.getSort().stream()
+                .map(order -> SortOptions.of(s -> s.field(f -> f
+                        .field(order.getProperty())
+                        .order(order.isAscending() ? SortOrder.Asc : SortOrder.Desc))))
+                .toList();
+    }
+
+    private static SourceConfig sourceConfig(NativeQuery query) {
+        SourceFilter sourceFilter = query.getSourceFilter();
+        if (sourceFilter == null) {
+            return null;
+        }
+        return SourceConfig.of(s -> Boolean.FALSE.equals(sourceFilter.fetchSource())
+                ? s.fetch(false)
+                : s.filter(f -> f.includes(Arrays.asList(sourceFilter.getIncludes()))));
+    }
+
+    @Override
+    public String queryJson(CourseSearchRequest request, String preference) {
+        return JsonpUtils.toJsonString(searchRequest(request, preference).build(), elasticsearchClient._jsonpMapper());
+    }
+
+    // A diagnostic run of the same request with the profile API on; its hits are not read
+    @Override
+    public SearchProfile profile(CourseSearchRequest request, String preference) {
+        SearchRequest profiled = searchRequest(request, preference).profile(true).build();
+        SearchResponse<Map> response = inFlightLimiter.call(() -> profiledSearch(profiled));
+        return new SearchProfile(response.took(),
+                JsonpUtils.toJsonString(response.profile(), elasticsearchClient._jsonpMapper()));
+    }
+
+    private SearchResponse<Map> profiledSearch(SearchRequest request) {
+        try {
+            return elasticsearchClient.search(request, Map.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private CourseDocument readHit(Hit<Map> hit) {
+        Document document = hit.source() != null ? Document.from(hit.source()) : Document.create();
+        document.setId(hit.id());
+        return elasticsearchOperations.getElasticsearchConverter().read(CourseDocument.class, document);
+    }
+
+    public NativeQuery buildSearchQuery(CourseSearchRequest request) {
+        CoursePaging.validate(request);
+
+        // Create pageable
+        Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
+
+        // Build NativeQuery with sorting and pagination
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(buildQuery(request))
+                .withPageable(pageable)
+                .withSort(CourseSortOptions.getSortOptions(request.getSort()))
+                .withSourceFilter(sourceFilter(request));
+        addFacets(builder, request);
+        return builder.build();
+    }
+
+    // Cursor mode: search_after inside a point-in-time, with id as tiebreaker so every hit has a unique position
+    // Facets are only computed for the first page
+    NativeQuery buildCursorQuery(CourseSearchRequest request, String pointInTimeId, List<Object> searchAfter) {
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(buildQuery(request))
+                .withPageable(PageRequest.of(0, CoursePaging.cursorFetchSize(request.getSize())))
+                .withSort(CourseSortOptions.getSortOptions(request.getSort()).and(CourseSortOptions.TIEBREAKER))
+                .withPointInTime(new PointInTime(pointInTimeId, cursorKeepAlive))
+                .withSearchAfter(searchAfter)
+                .withSourceFilter(sourceFilter(request));
+        if (searchAfter == null) {
+            addFacets(builder, request);
+        }
+        return builder.build();
+    }
+
+    // Aggregations run on the same query as the hits, in the same request
+    private static void addFacets(NativeQueryBuilder builder, CourseSearchRequest request) {
+        for (CourseFacet facet : CourseFacet.parse(request.getFacets())) {
+            builder.withAggregation(facet.key(), switch (facet) {
+                case CATEGORY -> Aggregation.of(a -> a.terms(t -> t.field("category").size(CourseFacet.TERMS_SIZE)));
+                case TYPE -> Aggregation.of(a -> a.terms(t -> t.field("type").size(CourseFacet.TERMS_SIZE)));
+                case PRICE -> Aggregation.of(a -> a.histogram(h -> h
+                        .field("price")
+                        .interval(CourseFacet.PRICE_INTERVAL)
+                        .minDocCount(1)));
+                case AGE -> Aggregation.of(a -> a.filters(f -> f.keyed(true).filters(b -> b.keyed(ageBandFilters()))));
+                case UPCOMING -> Aggregation.of(a -> a.dateHistogram(h -> h
+                        .field("nextSessionDate")
+                        .calendarInterval(CalendarInterval.Month)
+                        .format(CourseFacet.MONTH_FORMAT)
+                        .minDocCount(1)));
+            });
+        }
+    }
+
+    private static Map<String, Query> ageBandFilters() {
+        Map<String, Query> filters = new LinkedHashMap<>();
+        for (CourseFacet.AgeBand band : CourseFacet.AGE_BANDS) {
+            filters.put(band.key(), Query.of(q -> q.bool(b -> b
+                    .filter(f -> f.range(r -> r.number(n -> n.field("minAge").lte((double) band.maxAge()))))
+                    .filter(f -> f.range(r -> r.number(n -> n.field("maxAge").gte((double) band.minAge())))))));
+        }
+        return filters;
+    }
+
+    private static Map<String, List<FacetBucket>> readFacets(CourseSearchRequest request, SearchHits<CourseDocument> searchHits) {
+        Map<String, Aggregate> aggregates = new HashMap<>();
+        if (searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations) {
+            aggregations.aggregationsAsMap()
+                    .forEach((name, aggregation) -> aggregates.put(name, aggregation.aggregation().getAggregate()));
+        }
+        return readFacets(request, aggregates);
+    }
+
+    private static Map<String, List<FacetBucket>> readFacets(CourseSearchRequest request, Map<String, Aggregate> aggregates) {
+        Set<CourseFacet> requested = CourseFacet.parse(request.getFacets());
+        if (requested.isEmpty()) {
+            return null;
+        }
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        for (CourseFacet facet : requested) {
+            Aggregate aggregate = aggregates.get(facet.key());
+            if (aggregate == null) {
+                continue;
+            }
+            List<FacetBucket> buckets = switch (facet) {
+                case CATEGORY, TYPE -> aggregate.sterms().buckets().array().stream()
+                        .map(b -> new FacetBucket(b.key().stringValue(), b.docCount()))
+                        .toList();
+                case PRICE -> aggregate.histogram().buckets().array().stream()
+                        .map(b -> new FacetBucket(CourseFacet.priceKey(b.key()), b.docCount()))
+                        .toList();
+                case AGE -> aggregate.filters().buckets().keyed().entrySet().stream()
+                        .map(e -> new FacetBucket(e.getKey(), e.getValue().docCount()))
+                        .toList();
+                case UPCOMING -> aggregate.dateHistogram().buckets().array().stream()
+                        .map(b -> new FacetBucket(b.keyAsString(), b.docCount()))
+                        .toList();
+            };
+            facets.put(facet.key(), buckets);
+        }
+        return facets;
+    }
+
+    // Only the projected properties are fetched from _source, so the rest are never mapped
+    private static SourceFilter sourceFilter(CourseSearchRequest request) {
+        CourseFieldProjection projection = CourseFieldProjection.parse(request.getFields());
+        if (projection == null) {
+            return null;
+        }
+        return projection.getFields().isEmpty()
+                ? new FetchSourceFilter(false, null, null)
+                : new FetchSourceFilter(true, projection.includes(), null);
+    }
+
+    Query buildQuery(CourseSearchRequest request) {
+        BoolQuery.Builder boolQueryBuilder = new BoolQuery.Builder();
+
+        // Full-text search on title and description
+        if (request.getQ() != null && !request.getQ().trim().isEmpty()) {
+            Query multiMatchQuery = Query.of(q -> q
+                    .multiMatch(m -> m
+                            .query(request.getQ())
+                            .fields("title^2", "description") // Boost title field
+                            .fuzziness("AUTO") // Enable fuzzy matching for Assignment B
+                    )
+            );
+            boolQueryBuilder.must(multiMatchQuery);
+        }
+
+        // Age range filters using NumberRangeQuery
+        if (request.getMinAge() != null) {
+            NumberRangeQuery minAgeRangeQuery = NumberRangeQuery.of(r -> r
+                    .field("maxAge")
+                    .gte(request.getMinAge().doubleValue())
+            );
+            Query minAgeQuery = Query.of(q -> q.range(r -> r.number(minAgeRangeQuery)));
+            boolQueryBuilder.filter(minAgeQuery);
+        }
+
+        if (request.getMaxAge() != null) {
+            NumberRangeQuery maxAgeRangeQuery = NumberRangeQuery.of(r -> r
+                    .field("minAge")
+                    .lte(request.getMaxAge().doubleValue())
+            );
+            Query maxAgeQuery = Query.of(q -> q.range(r -> r.number(maxAgeRangeQuery)));
+            boolQueryBuilder.filter(maxAgeQuery);
+        }
+
+        // Category filter
+        if (request.getCategory() != null && !request.getCategory().trim().isEmpty()) {
+            Query categoryQuery = Query.of(q -> q
+                    .term(t -> t
+                            .field("category")
+                            .value(request.getCategory())
+                    )
+            );
+            boolQueryBuilder.filter(categoryQuery);
+        }
+
+        // Type filter
+        if (request.getType() != null) {
+            Query typeQuery = Query.of(q -> q
+                    .term(t -> t
+                            .field("type")
+                            .value(request.getType().name())
+                    )
+            );
+            boolQueryBuilder.filter(typeQuery);
+        }
+
+        // Price range filters using NumberRangeQuery
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            NumberRangeQuery.Builder priceRangeBuilder = new NumberRangeQuery.Builder()
+                    .field("price");
+            
+            if (request.getMinPrice() != null) {
+                priceRangeBuilder.gte(request.getMinPrice());
+            }
+            if (request.getMaxPrice() != null) {
+                priceRangeBuilder.lte(request.getMaxPrice());
+            }
+
+            NumberRangeQuery priceRangeQuery = priceRangeBuilder.build();
+            Query priceQuery = Query.of(q -> q.range(r -> r.number(priceRangeQuery)));
+            boolQueryBuilder.filter(priceQuery);
+        }
+
+        // Date filter using DateRangeQuery
+        if (request.getStartDate() != null) {
+            String dateString = request.getStartDate().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "Z";
+            DateRangeQuery dateRangeQuery = DateRangeQuery.of(r -> r
+                    .field("nextSessionDate")
+                    .gte(dateString)
+            );
+            Query dateQuery = Query.of(q -> q.range(r -> r.date(dateRangeQuery)));
+            boolQueryBuilder.filter(dateQuery);
+        }
+
+        // Build the final query
+        return Query.of(q -> q.bool(boolQueryBuilder.build()));
+    }
+
+    // Assignment B: Autocomplete suggestions
+    // Completion suggester on titleCompletion, filtered by its context; titles come from doc values, not _source
+    @Override
+    public List<String> suggest(String query, String category, CourseDocument.CourseType type, int limit) {
+        Tags tags = searchMetrics.tags(SearchMetrics.SUGGEST);
+        String index = elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class).getIndexName();
+        if (!isCompletionMapped(index)) {
+            return prefixSuggest(query, category, type, limit, tags);
+        }
+        String context = TitleCompletion.context(category, type);
+        int size = Math.max(limit, suggestCandidates);
+
+        SearchResponse<Map> response = inFlightLimiter.call(() -> searchMetrics.time(SearchMetrics.BACKEND, tags,
+                () -> completionSearch(index, query.trim(), context, size)));
+        searchMetrics.recordTook(tags, Duration.ofMillis(response.took()));
+
+        List<String> titles = new ArrayList<>();
+        for (Suggestion<Map> suggestion : response.suggest().getOrDefault(TITLE_SUGGESTER, List.of())) {
+            for (CompletionSuggestOption<Map> option : suggestion.completion().options()) {
+                JsonData title = option.fields().get(TITLE_KEYWORD);
+                if (title != null) {
+                    titles.add(title.toJson().asJsonArray().getString(0));
+                }
+            }
+        }
+        return suggestWeight.rank(titles, limit);
+    }
+
+    // An index created before titleCompletion existed has no such field; the suggester would fail on it until a reindex
+    private boolean isCompletionMapped(String index) {
+        Boolean mapped = completionMapped;
+        if (mapped == null) {
+            mapped = inFlightLimiter.call(() -> fieldMapping(index, TitleCompletion.FIELD))
+                    .result().values().stream()
+                    .allMatch(mappings -> mappings.mappings().containsKey(TitleCompletion.FIELD));
+            if (!mapped) {
+                log.warn("Index {} has no {} field; scoped suggestions use a bool_prefix query until it is reindexed",
+                        index, TitleCompletion.FIELD);
+            }
+            completionMapped = mapped;
+        }
+        return mapped;
+    }
+
+    private GetFieldMappingResponse fieldMapping(String index, String field) {
+        try {
+            return elasticsearchClient.indices().getFieldMapping(f -> f.index(index).fields(field));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // bool_prefix over the search_as_you_type subfields: earlier terms match whole words, the last one as a prefix.
+    // Hits arrive by relevance, which stands in for the completion weight
+    private List<String> prefixSuggest(String query, String category, CourseDocument.CourseType type, int limit, Tags tags) {
+        BoolQuery.Builder bool = new BoolQuery.Builder()
+                .must(m -> m.multiMatch(mm -> mm
+                        .query(query.trim())
+                        .type(TextQueryType.BoolPrefix)
+                        .fields("titleSuggest", "titleSuggest._2gram", "titleSuggest._3gram")));
+        if (category != null) {
+            bool.filter(f -> f.term(t -> t.field("category").value(category)));
+        }
+        if (type != null) {
+            bool.filter(f -> f.term(t -> t.field("type").value(type.name())));
+        }
+
+        NativeQuery searchQuery = NativeQuery.builder()
+                .withQuery(Query.of(q -> q.bool(bool.build())))
+                .withSourceFilter(new FetchSourceFilter(true, new String[]{"title"}, null))
+                .withMaxResults(Math.max(limit, suggestCandidates))
+                .build();
+        List<String> titles = timedSearch(searchQuery, tags).getSearchHits().stream()
+                .map(hit -> hit.getContent().getTitle())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return suggestWeight.rank(titles, limit);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isReplaced()) {
+            completionMapped = null;
+        }
+    }
+
+    private SearchResponse<Map> completionSearch(String index, String prefix, String context, int size) {
+        try {
+            return elasticsearchClient.search(s -> s
+                    .index(index)
+                    .size(0)
+                    .trackTotalHits(t -> t.enabled(false))
+                    .source(source -> source.fetch(false))
+                    .fields(f -> f.field(TITLE_KEYWORD))
+                    .suggest(suggest -> suggest.suggesters(TITLE_SUGGESTER, field -> field
+                            .prefix(prefix)
+                            .completion(c -> c
+                                    .field(TitleCompletion.FIELD)
+                                    .size(size)
+                                    .contexts(TitleCompletion.CONTEXT, List.of(CompletionContext.of(cc -> cc
+                                            .context(value -> value.category(context)))))))), Map.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long count() {
+        return courseRepository.count();
+    }
+
+    // The serving indices' UUIDs with the highest sequence number of each primary: every write, deletes included, moves one
+    @Override
+    public String catalogVersion() {
+        IndicesStatsResponse stats;
+        try {
+            stats = elasticsearchClient.indices().stats(s -> s
+                    .index(elasticsearchOperations.getIndexCoordinatesFor(CourseDocument.class).getIndexName())
+                    .metric("docs")
+                    .level(Level.Shards));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stats.indices().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(index -> index.getValue().uuid() + index.getValue().shards().entrySet().stream()
+                        .sorted(Map.Entry.comparingByKey())
+                        .map(shard -> shard.getValue().stream()
+                                .filter(copy -> copy.routing() != null && copy.routing().primary())
+                                .map(ShardStats::seqNo)
+                                .filter(Objects::nonNull)
+                                .map(seqNo -> ":" + seqNo.maxSeqNo())
+                                .collect(Collectors.joining()))
+                        .collect(Collectors.joining()))
+                .collect(Collectors.joining(","));
+    }
+
+    @Override
+    public Stream<CourseDocument> streamAll() {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(Query.of(q -> q.matchAll(m -> m)))
+                .build();
+        return elasticsearchOperations.searchForStream(query, CourseDocument.class)
+                .stream()
+                .map(SearchHit::getContent);
+    }
+
+    @Override
+    public List<CourseDocument> findAllById(Collection<String> ids) {
+        List<CourseDocument> courses = new ArrayList<>(ids.size());
+        courseRepository.findAllById(ids).forEach(courses::add);
+        return courses;
+    }
+
+    @Override
+    public void saveAll(List<CourseDocument> courses) {
+        courseRepository.saveAll(courses);
+    }
+
+    @Override
+    public void bulkIndex(List<CourseDocument> courses) {
+        try {
+            courseRepository.saveAll(courses, RefreshPolicy.NONE);
+        } catch (BulkFailureException e) {
+            // The repository only reports successful bulks; publish the documents that did make it
+            List<CourseDocument> indexed = courses.stream()
+                    .filter(course -> !e.getFailedDocuments().containsKey(course.getId()))
+                    .collect(Collectors.toList());
+            catalogGeneration.saved(indexed);
+            throw e;
+        }
+    }
+
+    @Override
+    public void bulkDelete(Collection<String> ids) {
+        courseRepository.deleteAllById(ids, RefreshPolicy.NONE);
+    }
+
+    @Override
+    public void refresh() {
+        elasticsearchOperations.indexOps(CourseDocument.class).refresh();
+        catalogGeneration.refreshed();
+    }
+
+    @Override
+    public void deleteAll() {
+        courseRepository.deleteAll();
+    }
+}
@@ -0,0 +1,95 @@
+package com.undoschool.coursesearch.engine;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.FacetBucket;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Facet buckets counted over matching documents, in the shape the Elasticsearch aggregations return:
+ * terms by count then key, histograms by key without empty buckets, and every age band.
+ */
+class FacetCounts {
+
+    private final Set<CourseFacet> facets;
+    private final Map<CourseFacet, Map<String, Long>> terms = new EnumMap<>(CourseFacet.class);
+    private final TreeMap<Double, Long> prices = new TreeMap<>();
+    private final TreeMap<String, Long> months = new TreeMap<>();
+    private final long[] ageBands = new long[CourseFacet.AGE_BANDS.size()];
+
+    FacetCounts(Set<CourseFacet> facets) {
+        this.facets = facets;
+    }
+
+    void add(CourseDocument course) {
+        for (CourseFacet facet : facets) {
+            switch (facet) {
+                case CATEGORY -> countTerm(facet, course.getCategory());
+                case TYPE -> countTerm(facet, course.getType() != null ? course.getType().name() : null);
+                case PRICE -> {
+                    if (course.getPrice() != null) {
+                        double bucket = Math.floor(course.getPrice() / CourseFacet.PRICE_INTERVAL) * CourseFacet.PRICE_INTERVAL;
+                        prices.merge(bucket, 1L, Long::sum);
+                    }
+                }
+                case AGE -> {
+                    if (course.getMinAge() != null && course.getMaxAge() != null) {
+                        for (int i = 0; i < ageBands.length; i++) {
+                            CourseFacet.AgeBand band = CourseFacet.AGE_BANDS.get(i);
+                            if (course.getMinAge() <= band.maxAge() && course.getMaxAge() >= band.minAge()) {
+                                ageBands[i]++;
+                            }
+                        }
+                    }
+                }
+                case UPCOMING -> {
+                    if (course.getNextSessionDate() != null) {
+                        months.merge(CourseFacet.MONTH.format(course.getNextSessionDate()), 1L, Long::sum);
+                    }
+                }
+            }
+        }
+    }
+
+    private void countTerm(CourseFacet facet, String value) {
+        if (value != null) {
+            terms.computeIfAbsent(facet, f -> new HashMap<>()).merge(value, 1L, Long::sum);
+        }
+    }
+
+    Map<String, List<FacetBucket>> toBuckets() {
+        Map<String, List<FacetBucket>> buckets = new LinkedHashMap<>();
+        for (CourseFacet facet : facets) {
+            buckets.put(facet.key(), switch (facet) {
+                case CATEGORY, TYPE -> terms.getOrDefault(facet, Map.of()).entrySet().stream()
+                        .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                                .thenComparing(Map.Entry.comparingByKey()))
+                        .limit(CourseFacet.TERMS_SIZE)
+                        .map(e -> new FacetBucket(e.getKey(), e.getValue()))
+                        .toList();
+                case PRICE -> prices.entrySet().stream()
+                        .map(e -> new FacetBucket(CourseFacet.priceKey(e.getKey()), e.getValue()))
+                        .toList();
+                case AGE -> {
+                    List<FacetBucket> bands = new ArrayList<>();
+                    for (int i = 0; i < ageBands.length; i++) {
+                        bands.add(new FacetBucket(CourseFacet.AGE_BANDS.get(i).key(), ageBands[i]));
+                    }
+                    yield bands;
+                }
+                case UPCOMING -> months.entrySet().stream()
+                        .map(e -> new FacetBucket(e.getKey(), e.getValue()))
+                        .toList();
+            });
+        }
+        return buckets;
+    }
+}
@@ -0,0 +1,64 @@
+package com.undoschool.coursesearch.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of calls waiting on Elasticsearch at once. With request handling on virtual threads the
+ * server no longer limits concurrency itself, so callers queue here for a bounded time and are then turned away.
+ */
+@Component
+@ConditionalOnProperty(name = "course-search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+public class InFlightLimiter {
+
+    private final int maxInFlight;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    public InFlightLimiter(MeterRegistry meterRegistry,
+                           @Value("${course-search.elasticsearch.max-in-flight:64}") int maxInFlight,
+                           @Value("${course-search.elasticsearch.acquire-timeout:2s}") Duration acquireTimeout) {
+        this.maxInFlight = maxInFlight;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(maxInFlight, true);
+        this.rejected = Counter.builder("course.search.backend.rejected")
+                .description("Searches turned away because every in-flight slot toward Elasticsearch stayed busy")
+                .register(meterRegistry);
+        Gauge.builder("course.search.backend.in.flight", this, InFlightLimiter::inFlight)
+                .description("Calls currently waiting on Elasticsearch")
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Supplier<T> call) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchBackendBusyException("Interrupted while waiting for Elasticsearch");
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new SearchBackendBusyException("All " + maxInFlight + " Elasticsearch slots are busy");
+        }
+        try {
+            return call.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+}
@@ -0,0 +1,419 @@
+package com.undoschool.coursesearch.engine;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Pure-Java engine that keeps the catalog in memory behind term postings, for single-node
+ * deployments and tests. Matching mirrors the queries built by {@link ElasticsearchCourseSearchEngine}.
+ * <p>
+ * A saved document takes a new ordinal, so ties keep save order. Once removed ordinals outnumber the live ones, the
+ * live documents are renumbered in order and the postings with them.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "course-search.engine", havingValue = "memory")
+public class InMemoryCourseSearchEngine implements CourseSearchEngine {
+
+    private final CatalogGeneration catalogGeneration;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Documents by ordinal, null once deleted until the next compaction
+    private final List<CourseDocument> documents = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    // Analyzed terms of title + description, and of title alone for suggestions
+    private final NavigableMap<String, BitSet> textTerms = new TreeMap<>();
+    private final NavigableMap<String, BitSet> titleTerms = new TreeMap<>();
+
+    @Override
+    public CourseSearchResponse search(CourseSearchRequest request) {
+        CoursePaging.validate(request);
+        lock.readLock().lock();
+        try {
+            BitSet candidates = hasText(request.getQ()) ? matchText(request.getQ()) : (BitSet) live.clone();
+            Predicate<CourseDocument> filter = buildFilter(request);
+
+            // Cursor mode orders by the sort plus the id tiebreaker and skips everything up to the cursor
+            boolean cursorMode = request.getCursor() != null;
+            Sort sort = CourseSortOptions.getSortOptions(request.getSort());
+            if (cursorMode) {
+                sort = sort.and(CourseSortOptions.TIEBREAKER);
+            }
+            SearchCursor cursor = cursorMode ? SearchCursor.decode(request.getCursor()) : null;
+            Comparator<CourseDocument> order = CourseSortOptions.comparator(sort);
+            CourseDocument after = cursor != null ? positionOf(sort, cursor.getSearchAfter()) : null;
+            CourseFieldProjection projection = CourseFieldProjection.parse(request.getFields());
+            Set<CourseFacet> requestedFacets = CourseFacet.parse(request.getFacets());
+            FacetCounts facets = requestedFacets.isEmpty() || after != null ? null : new FacetCounts(requestedFacets);
+
+            int from = cursorMode ? 0 : request.getPage() * request.getSize();
+            int window = cursorMode ? CoursePaging.cursorFetchSize(request.getSize()) : from + request.getSize();
+
+            // Keep only the best page window instead of sorting every match; ties keep index order
+            PriorityQueue<Integer> top = new PriorityQueue<>(Math.max(1, window),
+                    (a, b) -> compareHits(order, b, a));
+            long total = 0;
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (!filter.test(documents.get(i))) {
+                    continue;
+                }
+                total++;
+                if (facets != null) {
+                    facets.add(documents.get(i));
+                }
+                if (window == 0 || (after != null && order.compare(documents.get(i), after) <= 0)) {
+                    continue;
+                }
+                if (top.size() < window) {
+                    top.add(i);
+                } else if (compareHits(order, i, top.peek()) < 0) {
+                    top.poll();
+                    top.add(i);
+                }
+            }
+
+            List<Integer> ranked = new ArrayList<>(top);
+            ranked.sort((a, b) -> compareHits(order, a, b));
+            List<CourseDocument> courses = new ArrayList<>();
+            for (int i = from; i < Math.min(ranked.size(), from + request.getSize()); i++) {
+                courses.add(documents.get(ranked.get(i)));
+            }
+
+            String nextCursor = null;
+            if (cursorMode && ranked.size() == window) {
+                nextCursor = new SearchCursor(null, sortValues(sort, courses.get(courses.size() - 1))).encode();
+            }
+            if (projection != null) {
+                courses.replaceAll(projection::project);
+            }
+
+            return CourseSearchResponse.builder()
+                    .total(total)
+                    .courses(courses)
+                    .nextCursor(nextCursor)
+                    .facets(facets != null ? facets.toBuckets() : null)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int compareHits(Comparator<CourseDocument> order, int a, int b) {
+        int result = order.compare(documents.get(a), documents.get(b));
+        return result != 0 ? result : Integer.compare(a, b);
+    }
+
+    // Sort values in the same shape Elasticsearch returns them: dates as epoch millis
+    private static List<Object> sortValues(Sort sort, CourseDocument course) {
+        List<Object> values = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            switch (order.getProperty()) {
+                case "price" -> values.add(course.getPrice());
+                case "nextSessionDate" -> values.add(course.getNextSessionDate() != null
+                        ? course.getNextSessionDate().toEpochMilli() : null);
+                default -> values.add(course.getId());
+            }
+        }
+        return values;
+    }
+
+    // Document standing at the cursor position, to compare hits against
+    private static CourseDocument positionOf(Sort sort, List<Object> searchAfter) {
+        CourseDocument position = new CourseDocument();
+        int index = 0;
+        for (Sort.Order order : sort) {
+            Object value = index < searchAfter.size() ? searchAfter.get(index++) : null;
+            switch (order.getProperty()) {
+                case "price" -> position.setPrice(value != null ? ((Number) value).doubleValue() : null);
+                case "nextSessionDate" -> position.setNextSessionDate(value != null
+                        ? Instant.ofEpochMilli(((Number) value).longValue()) : null);
+                default -> position.setId(value != null ? value.toString() : null);
+            }
+        }
+        return position;
+    }
+
+    // multi_match over title and description with fuzziness AUTO: any query term may match
+    private BitSet matchText(String q) {
+        BitSet matched = new BitSet();
+        for (String token : TextAnalysis.tokenize(q)) {
+            int maxEdits = TextAnalysis.autoFuzziness(token);
+            if (maxEdits == 0) {
+                BitSet postings = textTerms.get(token);
+                if (postings != null) {
+                    matched.or(postings);
+                }
+                continue;
+            }
+            for (Map.Entry<String, BitSet> term : textTerms.entrySet()) {
+                if (TextAnalysis.withinEditDistance(token, term.getKey(), maxEdits)) {
+                    matched.or(term.getValue());
+                }
+            }
+        }
+        return matched;
+    }
+
+    // Range filters never match documents missing the field, as in Elasticsearch
+    private Predicate<CourseDocument> buildFilter(CourseSearchRequest request) {
+        Predicate<CourseDocument> filter = course -> true;
+
+        if (request.getMinAge() != null) {
+            int minAge = request.getMinAge();
+            filter = filter.and(course -> course.getMaxAge() != null && course.getMaxAge() >= minAge);
+        }
+        if (request.getMaxAge() != null) {
+            int maxAge = request.getMaxAge();
+            filter = filter.and(course -> course.getMinAge() != null && course.getMinAge() <= maxAge);
+        }
+        if (hasText(request.getCategory())) {
+            String category = request.getCategory();
+            filter = filter.and(course -> category.equals(course.getCategory()));
+        }
+        if (request.getType() != null) {
+            CourseDocument.CourseType type = request.getType();
+            filter = filter.and(course -> type == course.getType());
+        }
+        if (request.getMinPrice() != null) {
+            double minPrice = request.getMinPrice();
+            filter = filter.and(course -> course.getPrice() != null && course.getPrice() >= minPrice);
+        }
+        if (request.getMaxPrice() != null) {
+            double maxPrice = request.getMaxPrice();
+            filter = filter.and(course -> course.getPrice() != null && course.getPrice() <= maxPrice);
+        }
+        if (request.getStartDate() != null) {
+            Instant startDate = request.getStartDate().toInstant(ZoneOffset.UTC);
+            filter = filter.and(course -> course.getNextSessionDate() != null
+                    && !course.getNextSessionDate().isBefore(startDate));
+        }
+        return filter;
+    }
+
+    // Same semantics as bool_prefix on titleSuggest: whole-word terms plus a prefix on the last one,
+    // ranked by the number of query terms matched, among courses of the category and type if given
+    @Override
+    public List<String> suggest(String query, String category, CourseDocument.CourseType type, int limit) {
+        List<String> tokens = TextAnalysis.tokenize(query);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> scores = new HashMap<>();
+            for (String token : tokens.subList(0, tokens.size() - 1)) {
+                BitSet postings = titleTerms.get(token);
+                if (postings != null) {
+                    postings.stream().forEach(ordinal -> scores.merge(ordinal, 1, Integer::sum));
+                }
+            }
+            String prefix = tokens.get(tokens.size() - 1);
+            BitSet prefixMatches = new BitSet();
+            titleTerms.subMap(prefix, true, prefix + Character.MAX_VALUE, true)
+                    .values()
+                    .forEach(prefixMatches::or);
+            prefixMatches.stream().forEach(ordinal -> scores.merge(ordinal, 1, Integer::sum));
+
+            Set<String> suggestions = new LinkedHashSet<>();
+            scores.entrySet()
+                    .stream()
+                    .filter(entry -> category == null || category.equals(documents.get(entry.getKey()).getCategory()))
+                    .filter(entry -> type == null || type == documents.get(entry.getKey()).getType())
+                    .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .forEach(entry -> suggestions.add(documents.get(entry.getKey()).getTitle()));
+            return new ArrayList<>(suggestions);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Snapshot of the live documents, so the stream does not hold the lock
+    @Override
+    public Stream<CourseDocument> streamAll() {
+        lock.readLock().lock();
+        try {
+            List<CourseDocument> snapshot = new ArrayList<>(ordinals.size());
+            live.stream().forEach(ordinal -> snapshot.add(documents.get(ordinal)));
+            return snapshot.stream();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<CourseDocument> findAllById(Collection<String> ids) {
+        lock.readLock().lock();
+        try {
+            List<CourseDocument> courses = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Integer ordinal = ordinals.get(id);
+                if (ordinal != null) {
+                    courses.add(documents.get(ordinal));
+                }
+            }
+            return courses;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(List<CourseDocument> courses) {
+        lock.writeLock().lock();
+        try {
+            for (CourseDocument course : courses) {
+                Integer existing = ordinals.get(course.getId());
+                if (existing != null) {
+                    remove(existing);
+                }
+                int ordinal = documents.size();
+                documents.add(course);
+                ordinals.put(course.getId(), ordinal);
+                live.set(ordinal);
+                index(textTerms, ordinal, course.getTitle());
+                index(textTerms, ordinal, course.getDescription());
+                index(titleTerms, ordinal, course.getTitle());
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        catalogGeneration.saved(courses);
+    }
+
+    @Override
+    public void bulkDelete(Collection<String> ids) {
+        List<String> deleted = new ArrayList<>(ids.size());
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                Integer ordinal = ordinals.get(id);
+                if (ordinal != null) {
+                    remove(ordinal);
+                    deleted.add(id);
+                }
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        catalogGeneration.deleted(deleted);
+    }
+
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            documents.clear();
+            ordinals.clear();
+            live.clear();
+            textTerms.clear();
+            titleTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        catalogGeneration.cleared();
+    }
+
+    private void remove(int ordinal) {
+        CourseDocument course = documents.get(ordinal);
+        unindex(textTerms, ordinal, course.getTitle());
+        unindex(textTerms, ordinal, course.getDescription());
+        unindex(titleTerms, ordinal, course.getTitle());
+        ordinals.remove(course.getId());
+        live.clear(ordinal);
+        documents.set(ordinal, null);
+    }
+
+    private void compactIfSparse() {
+        if (documents.size() - ordinals.size() <= Math.max(1024, ordinals.size())) {
+            return;
+        }
+        int[] renumbered = new int[documents.size()];
+        List<CourseDocument> compacted = new ArrayList<>(ordinals.size());
+        for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+            CourseDocument course = documents.get(ordinal);
+            renumbered[ordinal] = compacted.size();
+            ordinals.put(course.getId(), compacted.size());
+            compacted.add(course);
+        }
+        documents.clear();
+        documents.addAll(compacted);
+        live.clear();
+        live.set(0, compacted.size());
+        renumber(textTerms, renumbered);
+        renumber(titleTerms, renumbered);
+    }
+
+    // Postings only hold live ordinals, so each maps to its new one
+    private static void renumber(Map<String, BitSet> terms, int[] renumbered) {
+        terms.replaceAll((term, postings) -> {
+            BitSet moved = new BitSet();
+            postings.stream().forEach(ordinal -> moved.set(renumbered[ordinal]));
+            return moved;
+        });
+    }
+
+    private static void index(Map<String, BitSet> terms, int ordinal, String text) {
+        for (String token : TextAnalysis.tokenize(text)) {
+            terms.computeIfAbsent(token, t -> new BitSet()).set(ordinal);
+        }
+    }
+
+    private static void unindex(Map<String, BitSet> terms, int ordinal, String text) {
+        for (String token : TextAnalysis.tokenize(text)) {
+            BitSet postings = terms.get(token);
+            if (postings != null) {
+                postings.clear(ordinal);
+                if (postings.isEmpty()) {
+                    terms.remove(token);
+                }
+            }
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,16 @@
+package com.undoschool.coursesearch.engine;
+
+/**
+ * Thrown when a search request fails validation (unknown field or facet, malformed cursor, oversized batch);
+ * answered with 400, unlike other exceptions, which point at a bug or a failing backend.
+ */
+public class InvalidSearchRequestException extends RuntimeException {
+
+    public InvalidSearchRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
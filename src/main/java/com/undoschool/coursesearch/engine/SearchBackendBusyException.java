@@ -0,0 +1,27 @@
+package com.undoschool.coursesearch.engine;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a search cannot get an in-flight slot toward the backend in time; the request should be retried later.
+ */
+public class SearchBackendBusyException extends RuntimeException {
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final Duration retryAfter;
+
+    public SearchBackendBusyException(String message) {
+        this(message, DEFAULT_RETRY_AFTER);
+    }
+
+    public SearchBackendBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    // Whole seconds for the Retry-After header, at least one
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
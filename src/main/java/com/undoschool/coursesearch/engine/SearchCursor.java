@@ -0,0 +1,51 @@
+package com.undoschool.coursesearch.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Opaque position in a cursor-paged result set: the point-in-time to read from (Elasticsearch only)
+ * and the sort values of the last hit returned. Encoded as URL-safe base64 JSON.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private String pointInTimeId;
+    private List<Object> searchAfter;
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode search cursor", e);
+        }
+    }
+
+    // An empty token starts a new cursor and decodes to null
+    public static SearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        SearchCursor cursor;
+        try {
+            cursor = MAPPER.readValue(Base64.getUrlDecoder().decode(token), SearchCursor.class);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidSearchRequestException("Invalid cursor", e);
+        }
+        if (cursor.getSearchAfter() == null || cursor.getSearchAfter().isEmpty()) {
+            throw new InvalidSearchRequestException("Invalid cursor");
+        }
+        return cursor;
+    }
+}
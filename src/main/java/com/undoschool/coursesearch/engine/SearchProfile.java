@@ -0,0 +1,7 @@
+package com.undoschool.coursesearch.engine;
+
+/**
+ * Result of running a search with the backend's profiler on: the backend's own time and its profile as JSON.
+ */
+public record SearchProfile(long tookMillis, String json) {
+}
@@ -0,0 +1,58 @@
+package com.undoschool.coursesearch.engine;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.suggest.SuggestWeight;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentProperty;
+import org.springframework.data.mapping.context.MappingContext;
+
+import java.util.Map;
+
+/**
+ * Converter that keeps a per-thread total of the time spent reading documents into entities. Spring Data maps
+ * hits inside the search call, so the engine subtracts this total to tell mapping apart from the round trip.
+ * <p>
+ * Every course written through Spring Data (repository, bulk ingest, reindex, sync) also gets its
+ * {@link TitleCompletion} field here; the mapping keeps it out of {@code _source}, so reads never see it.
+ */
+public class TimedElasticsearchConverter extends MappingElasticsearchConverter {
+
+    private static final ThreadLocal<long[]> READ_NANOS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private final SuggestWeight suggestWeight;
+
+    public TimedElasticsearchConverter(
+            MappingContext<? extends ElasticsearchPersistentEntity<?>, ElasticsearchPersistentProperty> mappingContext,
+            SuggestWeight suggestWeight) {
+        super(mappingContext);
+        this.suggestWeight = suggestWeight;
+    }
+
+    // Running total for the current thread; take the difference around a call
+    public static long readNanos() {
+        return READ_NANOS.get()[0];
+    }
+
+    @Override
+    public <R> R read(Class<R> type, Document source) {
+        long started = System.nanoTime();
+        try {
+            return super.read(type, source);
+        } finally {
+            READ_NANOS.get()[0] += System.nanoTime() - started;
+        }
+    }
+
+    @Override
+    public void write(Object source, Document sink) {
+        super.write(source, sink);
+        if (source instanceof CourseDocument course) {
+            Map<String, Object> completion = TitleCompletion.of(course, suggestWeight);
+            if (completion != null) {
+                sink.put(TitleCompletion.FIELD, completion);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.undoschool.coursesearch.engine;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.suggest.SuggestWeight;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code titleCompletion} completion field written alongside every indexed course. Its inputs are the title and
+ * each of its word suffixes, so a prefix of any word matches as the search_as_you_type query did; the suggester
+ * answers from the title's doc values and never loads {@code _source}.
+ * <p>
+ * Elasticsearch ORs context values and refuses context-less queries on a context-enabled field, so there is one
+ * {@code filter} context whose values cover every combination a suggest request can ask for: {@code *},
+ * {@code category:X}, {@code type:Y} and {@code category:X/type:Y}.
+ */
+public final class TitleCompletion {
+
+    public static final String FIELD = "titleCompletion";
+    public static final String CONTEXT = "filter";
+
+    private static final String ANY = "*";
+
+    private TitleCompletion() {
+    }
+
+    // The completion value for a course, or null when it has no title
+    public static Map<String, Object> of(CourseDocument course, SuggestWeight weight) {
+        if (course.getTitle() == null || course.getTitle().isBlank()) {
+            return null;
+        }
+        List<String> contexts = new ArrayList<>();
+        contexts.add(ANY);
+        String type = course.getType() != null ? course.getType().name() : null;
+        if (course.getCategory() != null) {
+            contexts.add(context(course.getCategory(), null));
+        }
+        if (type != null) {
+            contexts.add(context(null, course.getType()));
+        }
+        if (course.getCategory() != null && type != null) {
+            contexts.add(context(course.getCategory(), course.getType()));
+        }
+
+        Map<String, Object> completion = new LinkedHashMap<>();
+        completion.put("input", inputs(course.getTitle()));
+        completion.put("weight", weight.completionWeight(course));
+        completion.put("contexts", Map.of(CONTEXT, contexts));
+        return completion;
+    }
+
+    // The one context value a suggest request filters on; null category and type mean any
+    public static String context(String category, CourseDocument.CourseType type) {
+        if (category == null && type == null) {
+            return ANY;
+        }
+        if (type == null) {
+            return "category:" + category;
+        }
+        return category == null ? "type:" + type.name() : "category:" + category + "/type:" + type.name();
+    }
+
+    // The title from each word start on, word starts as TextAnalysis splits words
+    static List<String> inputs(String title) {
+        List<String> inputs = new ArrayList<>();
+        boolean inWord = false;
+        for (int i = 0; i < title.length(); i++) {
+            boolean wordChar = Character.isLetterOrDigit(title.charAt(i));
+            if (wordChar && !inWord) {
+                inputs.add(title.substring(i));
+            }
+            inWord = wordChar;
+        }
+        if (inputs.isEmpty()) {
+            inputs.add(title);
+        }
+        return inputs;
+    }
+}
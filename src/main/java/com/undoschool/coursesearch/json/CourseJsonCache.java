@@ -0,0 +1,158 @@
+package com.undoschool.coursesearch.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.undoschool.coursesearch.catalog.CatalogChangedEvent;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.CourseFieldProjection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * JSON of each course as served, so hot documents are serialized once instead of on every response. {@link #module()}
+ * wraps {@link CourseDocument}'s bean serializer: a document written without a field projection is spliced into the
+ * output from its cached UTF-8 bytes, anything else goes through the bean serializer as before.
+ * <p>
+ * An entry keeps a copy of the document it was written from and is only used while that copy equals the document
+ * being written, so a response never carries stale JSON; catalog changes drop the entries of changed courses.
+ */
+@Component
+public class CourseJsonCache {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Cache<String, Fragment> cache;
+    private final boolean enabled;
+
+    public CourseJsonCache(MeterRegistry meterRegistry,
+                           @Value("${course-search.serialization.fragment-cache.enabled:true}") boolean enabled,
+                           @Value("${course-search.serialization.fragment-cache.max-size:100000}") long maxSize) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "courseJsonFragments");
+    }
+
+    public Module module() {
+        SimpleModule module = new SimpleModule("CourseJsonFragments");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription description,
+                                                      JsonSerializer<?> serializer) {
+                return enabled && description.getBeanClass() == CourseDocument.class
+                        ? new FragmentSerializer((JsonSerializer<Object>) serializer)
+                        : serializer;
+            }
+        });
+        return module;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isCleared() || event.isReplaced()) {
+            cache.invalidateAll();
+            return;
+        }
+        cache.invalidateAll(event.getDeletedIds());
+        event.getSaved().forEach(course -> cache.invalidate(course.getId()));
+    }
+
+    private record Fragment(CourseDocument source, SerializedString json) {
+    }
+
+    private final class FragmentSerializer extends StdSerializer<Object> implements ResolvableSerializer, ContextualSerializer {
+
+        private final JsonSerializer<Object> delegate;
+
+        private FragmentSerializer(JsonSerializer<Object> delegate) {
+            super(CourseDocument.class, false);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void serialize(Object value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            CourseDocument course = (CourseDocument) value;
+            if (course.getId() == null || gen.getPrettyPrinter() != null || !unfiltered(course, provider)) {
+                delegate.serialize(value, gen, provider);
+                return;
+            }
+            Fragment fragment = cache.getIfPresent(course.getId());
+            if (fragment == null || !fragment.source().equals(course)) {
+                fragment = new Fragment(copy(course), write(course, provider));
+                cache.put(course.getId(), fragment);
+            }
+            gen.writeRawValue(fragment.json());
+        }
+
+        @Override
+        public void serializeWithType(Object value, JsonGenerator gen, SerializerProvider provider,
+                                      TypeSerializer typeSerializer) throws IOException {
+            delegate.serializeWithType(value, gen, provider, typeSerializer);
+        }
+
+        // A projection's filter replaces the default serialize-all filter for CourseDocument
+        private boolean unfiltered(CourseDocument course, SerializerProvider provider) {
+            FilterProvider filters = provider.getFilterProvider();
+            return filters != null
+                    && filters.findPropertyFilter(CourseFieldProjection.FILTER_ID, course) == SimpleBeanPropertyFilter.serializeAll();
+        }
+
+        private SerializedString write(CourseDocument course, SerializerProvider provider) throws IOException {
+            StringWriter json = new StringWriter();
+            try (JsonGenerator fragmentGen = JSON_FACTORY.createGenerator(json)) {
+                delegate.serialize(course, fragmentGen, provider);
+            }
+            SerializedString serialized = new SerializedString(json.toString());
+            // Encode once here rather than on the first response that splices it
+            serialized.asUnquotedUTF8();
+            return serialized;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (delegate instanceof ResolvableSerializer resolvable) {
+                resolvable.resolve(provider);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property) throws JsonMappingException {
+            JsonSerializer<?> contextual = provider.handlePrimaryContextualization(delegate, property);
+            return contextual == delegate ? this : new FragmentSerializer((JsonSerializer<Object>) contextual);
+        }
+    }
+
+    private static CourseDocument copy(CourseDocument course) {
+        return new CourseDocument(course.getId(), course.getTitle(), course.getDescription(), course.getCategory(),
+                course.getType(), course.getGradeRange(), course.getMinAge(), course.getMaxAge(), course.getPrice(),
+                course.getNextSessionDate(), course.getTitleSuggest());
+    }
+}
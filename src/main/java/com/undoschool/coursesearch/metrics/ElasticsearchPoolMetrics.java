@@ -0,0 +1,73 @@
+package com.undoschool.coursesearch.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.elasticsearch.client.Node;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Gauges over the Elasticsearch client's connection pool, in total ({@code node=all}) and per node: leased
+ * connections against {@code max} show how close the client is to queueing, and {@code pending} requests waiting
+ * for a connection are that queueing. Failed nodes, which the client routes around until they answer again, are
+ * counted in {@code course.elasticsearch.node.failures}.
+ */
+public class ElasticsearchPoolMetrics implements MeterBinder {
+
+    public static final String POOL_GAUGE = "course.elasticsearch.pool";
+    public static final String NODE_FAILURES = "course.elasticsearch.node.failures";
+
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final List<HttpHost> nodes;
+    private volatile MeterRegistry meterRegistry;
+
+    public ElasticsearchPoolMetrics(PoolingNHttpClientConnectionManager connectionManager, List<HttpHost> nodes) {
+        this.connectionManager = connectionManager;
+        this.nodes = nodes;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        register(registry, "all", connectionManager::getTotalStats);
+        for (HttpHost node : nodes) {
+            // The route the client plans for a node: direct, secure for https
+            HttpRoute route = new HttpRoute(node, null, "https".equalsIgnoreCase(node.getSchemeName()));
+            register(registry, node.toHostString(), () -> connectionManager.getStats(route));
+        }
+    }
+
+    public void nodeFailed(Node node) {
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            Counter.builder(NODE_FAILURES)
+                    .description("Requests that failed on an Elasticsearch node, marking it dead for a backoff period")
+                    .tag("node", node.getHost().toHostString())
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    private static void register(MeterRegistry registry, String node, Supplier<PoolStats> stats) {
+        gauge(registry, node, stats, "leased", "Connections in use", PoolStats::getLeased);
+        gauge(registry, node, stats, "pending", "Requests waiting for a connection", PoolStats::getPending);
+        gauge(registry, node, stats, "available", "Idle connections kept alive", PoolStats::getAvailable);
+        gauge(registry, node, stats, "max", "Connection limit", PoolStats::getMax);
+    }
+
+    private static void gauge(MeterRegistry registry, String node, Supplier<PoolStats> stats, String name,
+                              String description, ToIntFunction<PoolStats> value) {
+        Gauge.builder(POOL_GAUGE + "." + name, stats, supplier -> value.applyAsInt(supplier.get()))
+                .description(description)
+                .tag("node", node)
+                .register(registry);
+    }
+}
@@ -0,0 +1,145 @@
+package com.undoschool.coursesearch.metrics;
+
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the stages of a search: building the query, the backend call, mapping hits to documents and
+ * writing the response. Elasticsearch's own "took" is recorded next to the client-observed backend time,
+ * so the difference shows network and client overhead. Tagged by endpoint, sort and the filters present.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchMetrics {
+
+    public static final String STAGE_TIMER = "course.search.stage";
+    public static final String TOOK_TIMER = "course.search.backend.took";
+
+    public static final String BUILD = "build";
+    public static final String BACKEND = "backend";
+    public static final String MAPPING = "mapping";
+    public static final String SERIALIZATION = "serialization";
+
+    public static final String SEARCH = "search";
+    public static final String BATCH = "batch";
+    public static final String EXPORT = "export";
+    public static final String SUGGEST = "suggest";
+
+    // Used for requests that mix several sorts and filter sets, like a batch
+    public static final String MULTIPLE = "multiple";
+
+    private static final String TAGS_ATTRIBUTE = SearchMetrics.class.getName() + ".tags";
+
+    // Fixed buckets keep the series count bounded across endpoint, sort and filter combinations
+    private static final Duration[] BUCKETS = {
+            Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+            Duration.ofSeconds(1), Duration.ofSeconds(2)
+    };
+
+    private final MeterRegistry meterRegistry;
+
+    public Tags tags(CourseSearchRequest request) {
+        String endpoint = request.getEndpoint() != null ? request.getEndpoint() : SEARCH;
+        return Tags.of("endpoint", endpoint, "sort", sortName(request.getSort()), "filters", filterNames(request));
+    }
+
+    // Endpoints without sort or filters
+    public Tags tags(String endpoint) {
+        return Tags.of("endpoint", endpoint, "sort", "none", "filters", "none");
+    }
+
+    public Tags batchTags() {
+        return Tags.of("endpoint", BATCH, "sort", MULTIPLE, "filters", MULTIPLE);
+    }
+
+    public void record(String stage, Tags tags, long nanos) {
+        Timer.builder(STAGE_TIMER)
+                .description("Time spent per stage of a search")
+                .tags(tags)
+                .tag("stage", stage)
+                .serviceLevelObjectives(BUCKETS)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T time(String stage, Tags tags, Supplier<T> call) {
+        long started = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            record(stage, tags, System.nanoTime() - started);
+        }
+    }
+
+    public void recordTook(Tags tags, Duration took) {
+        if (took == null) {
+            return;
+        }
+        Timer.builder(TOOK_TIMER)
+                .description("Search time reported by Elasticsearch (took)")
+                .tags(tags)
+                .serviceLevelObjectives(BUCKETS)
+                .register(meterRegistry)
+                .record(took);
+    }
+
+    // Tags for the response body of the current HTTP request, picked up when the body is serialized
+    public void bindToResponse(Tags tags) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(TAGS_ATTRIBUTE, tags, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public Tags boundToResponse() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null ? (Tags) attributes.getAttribute(TAGS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) : null;
+    }
+
+    // Unknown sort names fall back to upcoming, as in CourseSortOptions
+    private static String sortName(String sort) {
+        String name = sort.toLowerCase(Locale.ROOT);
+        return name.equals("priceasc") || name.equals("pricedesc") ? name : "upcoming";
+    }
+
+    private static String filterNames(CourseSearchRequest request) {
+        List<String> present = new ArrayList<>();
+        if (hasText(request.getQ())) {
+            present.add("q");
+        }
+        if (request.getMinAge() != null || request.getMaxAge() != null) {
+            present.add("age");
+        }
+        if (hasText(request.getCategory())) {
+            present.add("category");
+        }
+        if (request.getType() != null) {
+            present.add("type");
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            present.add("price");
+        }
+        if (request.getStartDate() != null) {
+            present.add("startDate");
+        }
+        return present.isEmpty() ? "none" : String.join(",", present);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.trim().isEmpty();
+    }
+}
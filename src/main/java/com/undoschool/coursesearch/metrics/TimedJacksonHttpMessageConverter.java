@@ -0,0 +1,38 @@
+package com.undoschool.coursesearch.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * JSON converter that records the serialization stage for responses whose controller bound search tags.
+ * The time includes writing to the connection, so a slow client shows up here too.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final SearchMetrics searchMetrics;
+
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper, SearchMetrics searchMetrics) {
+        super(objectMapper);
+        this.searchMetrics = searchMetrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Tags tags = searchMetrics.boundToResponse();
+        if (tags == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            searchMetrics.record(SearchMetrics.SERIALIZATION, tags, System.nanoTime() - started);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.undoschool.coursesearch.repository;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repository advice that reports every save/delete made through {@link CourseRepository}
+ * to the {@link CatalogGeneration}, covering the RefreshPolicy variants as well.
+ */
+@RequiredArgsConstructor
+public class CatalogChangeInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<CatalogGeneration> catalogGeneration;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+
+        String method = invocation.getMethod().getName();
+        Object[] arguments = invocation.getArguments();
+        Object first = arguments.length > 0 ? arguments[0] : null;
+
+        if (method.startsWith("save")) {
+            catalogGeneration.getObject().saved(courses(result));
+        } else if (method.equals("deleteById")) {
+            catalogGeneration.getObject().deleted(List.of((String) first));
+        } else if (method.equals("deleteAllById")) {
+            catalogGeneration.getObject().deleted(ids((Iterable<?>) first));
+        } else if (method.equals("delete")) {
+            catalogGeneration.getObject().deleted(List.of(((CourseDocument) first).getId()));
+        } else if (method.equals("deleteAll")) {
+            if (first instanceof Iterable<?> entities) {
+                catalogGeneration.getObject().deleted(ids(entities));
+            } else {
+                catalogGeneration.getObject().cleared();
+            }
+        }
+        return result;
+    }
+
+    private static List<CourseDocument> courses(Object saved) {
+        List<CourseDocument> courses = new ArrayList<>();
+        if (saved instanceof Iterable<?> entities) {
+            entities.forEach(entity -> courses.add((CourseDocument) entity));
+        } else if (saved instanceof CourseDocument course) {
+            courses.add(course);
+        }
+        return courses;
+    }
+
+    private static List<String> ids(Iterable<?> idsOrEntities) {
+        List<String> ids = new ArrayList<>();
+        for (Object value : idsOrEntities) {
+            ids.add(value instanceof CourseDocument course ? course.getId() : (String) value);
+        }
+        return ids;
+    }
+}
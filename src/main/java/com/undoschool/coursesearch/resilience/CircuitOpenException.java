@@ -0,0 +1,16 @@
+package com.undoschool.coursesearch.resilience;
+
+import com.undoschool.coursesearch.engine.SearchBackendBusyException;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling the backend while the circuit breaker is open; answered with 503 like any other
+ * busy backend, unless a fallback result is served in its place.
+ */
+public class CircuitOpenException extends SearchBackendBusyException {
+
+    public CircuitOpenException(String message, Duration retryAfter) {
+        super(message, retryAfter);
+    }
+}
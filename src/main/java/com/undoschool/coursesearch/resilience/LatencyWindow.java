@@ -0,0 +1,53 @@
+package com.undoschool.coursesearch.resilience;
+
+import java.util.Arrays;
+
+/**
+ * The most recent latencies and a percentile over them, recomputed every few samples rather than on every read.
+ */
+final class LatencyWindow {
+
+    private static final int MIN_SAMPLES = 20;
+
+    private final long[] samples;
+    private final double percentile;
+    private final int updateEvery;
+    private int next;
+    private int size;
+    private int sinceUpdate;
+    private volatile long percentileNanos = -1;
+
+    LatencyWindow(int capacity, double percentile) {
+        if (capacity < 1 || percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Latency window needs a capacity and a percentile in (0, 100]");
+        }
+        this.samples = new long[capacity];
+        this.percentile = percentile;
+        this.updateEvery = Math.max(1, capacity / 20);
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        if (++sinceUpdate >= updateEvery) {
+            sinceUpdate = 0;
+            update();
+        }
+    }
+
+    // -1 until the window has seen enough samples to say anything about the tail
+    long percentileNanos() {
+        return percentileNanos;
+    }
+
+    private void update() {
+        if (size < Math.min(MIN_SAMPLES, samples.length)) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * size) - 1;
+        percentileNanos = sorted[Math.max(0, Math.min(size - 1, rank))];
+    }
+}
@@ -0,0 +1,212 @@
+package com.undoschool.coursesearch.resilience;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.service.SearchRequestKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker in front of backend searches. Outcomes of the last {@code window} calls are kept; once at least
+ * {@code minimum-calls} are in and the failure rate reaches the threshold, the circuit opens and searches fail fast
+ * for {@code open-duration} instead of piling onto a struggling backend. Then a single probe goes through: success
+ * closes the circuit, failure opens it again.
+ * <p>
+ * While open, a search answered successfully before is served from the last good response for the same request,
+ * however old; other searches get 503. Only backend and transport errors count as failures: invalid requests, local
+ * load shedding and bugs in this service say nothing about the backend's health.
+ */
+@Slf4j
+@Component
+public class SearchCircuitBreaker {
+
+    static final String REJECTED_COUNTER = "course.search.circuit.rejected";
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final boolean enabled;
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration openDuration;
+    private final boolean[] outcomes;
+    private final Cache<SearchRequestKey, CourseSearchResponse> lastGood;
+    private final Counter servedFallback;
+    private final Counter failedFast;
+
+    private int next;
+    private int calls;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probing;
+
+    public SearchCircuitBreaker(MeterRegistry meterRegistry,
+                                @Value("${course-search.circuit-breaker.enabled:true}") boolean enabled,
+                                @Value("${course-search.circuit-breaker.failure-rate-threshold:50}") double failureRateThreshold,
+                                @Value("${course-search.circuit-breaker.window:50}") int window,
+                                @Value("${course-search.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                                @Value("${course-search.circuit-breaker.open-duration:10s}") Duration openDuration,
+                                @Value("${course-search.circuit-breaker.fallback-max-size:10000}") long fallbackMaxSize) {
+        this.enabled = enabled;
+        this.failureRateThreshold = failureRateThreshold / 100;
+        this.minimumCalls = Math.min(minimumCalls, window);
+        this.openDuration = openDuration;
+        this.outcomes = new boolean[window];
+        this.lastGood = Caffeine.newBuilder().maximumSize(fallbackMaxSize).build();
+        this.servedFallback = meterRegistry.counter(REJECTED_COUNTER, "outcome", "fallback");
+        this.failedFast = meterRegistry.counter(REJECTED_COUNTER, "outcome", "failed");
+        Gauge.builder("course.search.circuit.state", this, breaker -> breaker.state().ordinal())
+                .description("Search circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+    }
+
+    // key is where a successful response is kept as a fallback; null for searches that never repeat (cursor pages)
+    public CourseSearchResponse call(SearchRequestKey key, Supplier<CourseSearchResponse> search) {
+        if (!enabled) {
+            return search.get();
+        }
+        if (!tryAcquire()) {
+            throw new CircuitOpenException("Search backend is failing; calls are paused", remainingOpen());
+        }
+        CourseSearchResponse response;
+        try {
+            response = search.get();
+        } catch (RuntimeException | Error e) {
+            if (isBackendFailure(e)) {
+                onFailure();
+            } else {
+                release();
+            }
+            throw e;
+        }
+        onSuccess();
+        if (key != null) {
+            lastGood.put(key, response);
+        }
+        return response;
+    }
+
+    // A copy of the last good response for the request, marked stale, or the exception again when there is none
+    public CourseSearchResponse fallback(SearchRequestKey key, CircuitOpenException e) {
+        CourseSearchResponse response = key == null ? null : lastGood.getIfPresent(key);
+        if (response == null) {
+            failedFast.increment();
+            throw e;
+        }
+        servedFallback.increment();
+        return CourseSearchResponse.builder()
+                .total(response.getTotal())
+                .courses(response.getCourses())
+                .nextCursor(response.getNextCursor())
+                .facets(response.getFacets())
+                .stale(true)
+                .build();
+    }
+
+    synchronized State state() {
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDuration.toNanos()) {
+            state = State.HALF_OPEN;
+            probing = false;
+            log.info("Search circuit half-open, probing the backend");
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        return false;
+    }
+
+    // The call said nothing about backend health; a probe slot is handed back
+    // I/O and timeouts on the way to Elasticsearch, or an error Elasticsearch reports about itself (5xx)
+    static boolean isBackendFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException
+                    || cause instanceof TimeoutException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof ElasticsearchException elasticsearch && elasticsearch.status() >= 500) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void release() {
+        if (state == State.HALF_OPEN) {
+            probing = false;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            log.info("Search circuit closed");
+            state = State.CLOSED;
+            reset();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    private synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            log.warn("Search circuit probe failed, open for another {}", openDuration);
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && failures >= failureRateThreshold * calls) {
+                log.warn("Search circuit open for {} after {} failures in {} calls", openDuration, failures, calls);
+                open();
+            }
+        }
+    }
+
+    private void record(boolean failure) {
+        if (calls == outcomes.length) {
+            failures -= outcomes[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        outcomes[next] = failure;
+        failures += failure ? 1 : 0;
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        reset();
+    }
+
+    private void reset() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+    private synchronized Duration remainingOpen() {
+        long remaining = openDuration.toNanos() - (System.nanoTime() - openedAt);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+}
@@ -0,0 +1,154 @@
+package com.undoschool.coursesearch.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Hedged requests: when a search has not answered within the recent latency percentile, the same search goes out
+ * a second time with a different routing preference, and whichever succeeds first is returned. Hedging at the p95
+ * costs about 5% extra backend calls and cuts off the slow tail a single stuck shard copy or node would cause.
+ * <p>
+ * Until the latency window has enough samples, searches run once. A search that fails before the delay is not
+ * hedged; that is the circuit breaker's concern, not a latency one.
+ */
+@Component
+public class SearchHedger {
+
+    static final String HEDGED_COUNTER = "course.search.hedged";
+    static final String HEDGE_WINS_COUNTER = "course.search.hedge.wins";
+
+    private final boolean enabled;
+    private final long minDelayNanos;
+    private final LatencyWindow latencies;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("search-hedge-", 0).factory());
+    private final Counter hedged;
+    private final Counter hedgeWins;
+
+    public SearchHedger(MeterRegistry meterRegistry,
+                        @Value("${course-search.hedging.enabled:false}") boolean enabled,
+                        @Value("${course-search.hedging.percentile:95}") double percentile,
+                        @Value("${course-search.hedging.min-delay:10ms}") Duration minDelay,
+                        @Value("${course-search.hedging.window:1000}") int window) {
+        this.enabled = enabled;
+        this.minDelayNanos = minDelay.toNanos();
+        this.latencies = new LatencyWindow(window, percentile);
+        this.hedged = Counter.builder(HEDGED_COUNTER)
+                .description("Searches sent a second time because the first had not answered within the hedge delay")
+                .register(meterRegistry);
+        this.hedgeWins = Counter.builder(HEDGE_WINS_COUNTER)
+                .description("Hedged searches answered by the second request")
+                .register(meterRegistry);
+        Gauge.builder("course.search.hedge.delay", this, hedger -> hedger.delayNanos() / 1e6)
+                .description("Current hedge delay in milliseconds; negative while there are too few samples")
+                .register(meterRegistry);
+    }
+
+    // attempt gets the routing preference: null for the first request, a fresh random one for the hedge
+    public <T> T call(Function<String, T> attempt) {
+        if (!enabled) {
+            return attempt.apply(null);
+        }
+        long delay = delayNanos();
+        CompletableFuture<T> primary = submit(attempt, null);
+        if (delay < 0) {
+            return await(primary);
+        }
+        try {
+            return primary.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Still running: hedge below
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a search", e);
+        }
+
+        hedged.increment();
+        CompletableFuture<T> hedge = submit(attempt, "hedge-" + Integer.toHexString(ThreadLocalRandom.current().nextInt()));
+        return await(firstSuccess(primary, hedge));
+    }
+
+    // The percentile of recent attempts, never below min-delay; -1 while the window is still filling
+    long delayNanos() {
+        long percentile = latencies.percentileNanos();
+        return percentile < 0 ? -1 : Math.max(minDelayNanos, percentile);
+    }
+
+    // Every successful attempt, hedge or not, feeds the window so the delay tracks what the backend delivers
+    private <T> CompletableFuture<T> submit(Function<String, T> attempt, String preference) {
+        return CompletableFuture.supplyAsync(() -> {
+            long started = System.nanoTime();
+            T result = attempt.apply(preference);
+            latencies.record(System.nanoTime() - started);
+            return result;
+        }, executor);
+    }
+
+    // Completes with the first success, or with the last failure once both failed; the loser runs to completion
+    private <T> CompletableFuture<T> firstSuccess(CompletableFuture<T> primary, CompletableFuture<T> hedge) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicBoolean won = new AtomicBoolean();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((result, error) -> settle(winner, won, failures, result, error, false));
+        hedge.whenComplete((result, error) -> settle(winner, won, failures, result, error, true));
+        return winner;
+    }
+
+    // A hedge win is counted before the winner completes, so the caller never sees the answer before the count
+    private <T> void settle(CompletableFuture<T> winner, AtomicBoolean won, AtomicInteger failures,
+                            T result, Throwable error, boolean hedge) {
+        if (error == null) {
+            if (won.compareAndSet(false, true)) {
+                if (hedge) {
+                    hedgeWins.increment();
+                }
+                winner.complete(result);
+            }
+        } else if (failures.incrementAndGet() == 2) {
+            winner.completeExceptionally(error);
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a search", e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        // whenComplete sees the CompletionException supplyAsync wrapped around the attempt's own exception
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+}
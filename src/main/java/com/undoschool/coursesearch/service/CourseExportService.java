@@ -0,0 +1,67 @@
+package com.undoschool.coursesearch.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.CourseFieldProjection;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import com.undoschool.coursesearch.metrics.SearchMetrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes every course matching a search as NDJSON, walking the matches with cursor paging so that only one batch
+ * is held in memory at a time.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseExportService {
+
+    private final CourseSearchEngine courseSearchEngine;
+    private final ObjectMapper objectMapper;
+    private final SearchMetrics searchMetrics;
+
+    @Value("${course-search.export.batch-size:1000}")
+    private int batchSize;
+
+    public long exportCourses(CourseSearchRequest request, OutputStream out) throws IOException {
+        CourseFieldProjection projection = CourseFieldProjection.parse(request.getFields());
+        ObjectWriter writer = (projection != null ? objectMapper.writer(projection.filters()) : objectMapper.writer())
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        // Exports always start a fresh cursor; paging and facets do not apply
+        request.setPage(null);
+        request.setSize(batchSize);
+        request.setFacets(null);
+        request.setCursor("");
+
+        Tags tags = searchMetrics.tags(request);
+        long exported = 0;
+        long started = System.nanoTime();
+        while (request.getCursor() != null) {
+            CourseSearchResponse page = courseSearchEngine.search(request);
+            long writeStarted = System.nanoTime();
+            for (CourseDocument course : page.getCourses()) {
+                out.write(writer.writeValueAsBytes(course));
+                out.write('\n');
+            }
+            out.flush();
+            searchMetrics.record(SearchMetrics.SERIALIZATION, tags, System.nanoTime() - writeStarted);
+            exported += page.getCourses().size();
+            request.setCursor(page.getNextCursor());
+        }
+
+        log.info("Exported {} courses in {} ms", exported, (System.nanoTime() - started) / 1_000_000);
+        return exported;
+    }
+}
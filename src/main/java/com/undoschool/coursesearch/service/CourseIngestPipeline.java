@@ -0,0 +1,183 @@
+package com.undoschool.coursesearch.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams courses from a JSON array or NDJSON input into the search engine in fixed-size bulk
+ * batches sent concurrently. At most {@code concurrency} batches are in flight: the reader blocks
+ * until a slot frees up, so heap use does not depend on the input size.
+ */
+@Slf4j
+@Component
+public class CourseIngestPipeline {
+
+    private final CourseSearchEngine courseSearchEngine;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int concurrency;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+
+    public CourseIngestPipeline(CourseSearchEngine courseSearchEngine,
+                                ObjectMapper objectMapper,
+                                @Value("${course-search.loader.batch-size:1000}") int batchSize,
+                                @Value("${course-search.loader.concurrency:4}") int concurrency,
+                                @Value("${course-search.loader.max-retries:3}") int maxRetries,
+                                @Value("${course-search.loader.retry-backoff:500ms}") Duration retryBackoff) {
+        this.courseSearchEngine = courseSearchEngine;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+    }
+
+    public record IngestReport(long indexed, long failed, long batches, Duration elapsed) {
+    }
+
+    public IngestReport ingest(InputStream input) throws IOException {
+        IngestReport report = ingest(input, courseSearchEngine::bulkIndex, batchSize);
+        courseSearchEngine.refresh();
+        return report;
+    }
+
+    // Streams into any bulk writer without refreshing, e.g. into an index that is not serving searches yet
+    public IngestReport ingest(InputStream input, Consumer<List<CourseDocument>> writer, int batchSize) throws IOException {
+        // readValues iterates the elements of a root array as well as root-level NDJSON values
+        try (MappingIterator<CourseDocument> courses = objectMapper.readerFor(CourseDocument.class).readValues(input)) {
+            return ingest(() -> courses.hasNextValue() ? courses.nextValue() : null, writer, batchSize);
+        }
+    }
+
+    // Same batching for courses read from an index, e.g. the serving index copied into its next version
+    public IngestReport ingest(Stream<CourseDocument> courses, Consumer<List<CourseDocument>> writer, int batchSize) {
+        Iterator<CourseDocument> iterator = courses.iterator();
+        try {
+            return ingest(() -> iterator.hasNext() ? iterator.next() : null, writer, batchSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private IngestReport ingest(CourseReader courses, Consumer<List<CourseDocument>> writer, int batchSize) throws IOException {
+        long started = System.nanoTime();
+        AtomicLong indexed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long batches = 0;
+
+        Semaphore inFlight = new Semaphore(concurrency);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+
+        try {
+            List<CourseDocument> batch = new ArrayList<>(batchSize);
+            CourseDocument course;
+            while ((course = courses.next()) != null) {
+                // Set titleSuggest field for autocomplete
+                course.setTitleSuggest(course.getTitle());
+                batch.add(course);
+
+                if (batch.size() == batchSize) {
+                    submit(++batches, batch, writer, executor, inFlight, indexed, failed);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(++batches, batch, writer, executor, inFlight, indexed, failed);
+            }
+
+            // Wait for the batches still in flight
+            inFlight.acquireUninterruptibly(concurrency);
+        } finally {
+            executor.shutdown();
+        }
+
+        IngestReport report = new IngestReport(indexed.get(), failed.get(), batches,
+                Duration.ofNanos(System.nanoTime() - started));
+        log.info("Ingested {} courses in {} batches ({} failed) in {} ms",
+                report.indexed(), report.batches(), report.failed(), report.elapsed().toMillis());
+        return report;
+    }
+
+    private void submit(long batchNumber, List<CourseDocument> batch, Consumer<List<CourseDocument>> writer,
+                        ExecutorService executor, Semaphore inFlight, AtomicLong indexed, AtomicLong failed) {
+        // Backpressure: block the reader until a batch slot is free
+        inFlight.acquireUninterruptibly();
+        executor.execute(() -> {
+            try {
+                long started = System.nanoTime();
+                List<CourseDocument> rejected = indexWithRetry(batch, writer);
+                long elapsedNanos = Math.max(1, System.nanoTime() - started);
+
+                indexed.addAndGet(batch.size() - rejected.size());
+                failed.addAndGet(rejected.size());
+                log.info("Batch {} indexed {} courses in {} ms ({} courses/s)", batchNumber,
+                        batch.size() - rejected.size(), elapsedNanos / 1_000_000,
+                        (batch.size() - rejected.size()) * 1_000_000_000L / elapsedNanos);
+                if (!rejected.isEmpty()) {
+                    log.error("Batch {} gave up on {} courses: {}", batchNumber, rejected.size(),
+                            rejected.stream().map(CourseDocument::getId).collect(Collectors.toList()));
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    // Returns the courses that could not be indexed; only failed items are resent
+    private List<CourseDocument> indexWithRetry(List<CourseDocument> batch, Consumer<List<CourseDocument>> writer) {
+        List<CourseDocument> pending = batch;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                writer.accept(pending);
+                return List.of();
+            } catch (BulkFailureException e) {
+                Set<String> failedIds = e.getFailedDocuments().keySet();
+                pending = pending.stream()
+                        .filter(course -> failedIds.contains(course.getId()))
+                        .collect(Collectors.toList());
+                log.warn("Bulk attempt {} rejected {} courses", attempt + 1, pending.size());
+            } catch (RuntimeException e) {
+                log.warn("Bulk attempt {} failed for {} courses: {}", attempt + 1, pending.size(), e.getMessage());
+            }
+
+            if (attempt >= maxRetries || pending.isEmpty()) {
+                return pending;
+            }
+            try {
+                Thread.sleep(retryBackoff.toMillis() << attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return pending;
+            }
+        }
+    }
+
+    // The next course, or null at the end of the input
+    @FunctionalInterface
+    private interface CourseReader {
+        CourseDocument next() throws IOException;
+    }
+}
@@ -0,0 +1,141 @@
+package com.undoschool.coursesearch.service;
+
+import com.undoschool.coursesearch.browse.ColumnarBrowseIndex;
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.CourseIndexManager;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import com.undoschool.coursesearch.suggest.TitleSuggestionIndex;
+import com.undoschool.coursesearch.sync.ChangeFeedSync;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Zero-downtime reindex: copies the serving index into the next {@code courses_vN} with ingest settings and the
+ * current mapping, restores the serving settings, warms it and only then swaps the alias. The copy is taken while
+ * change-feed sync is paused, so every change synced so far is in the new index and sync resumes from the same
+ * checkpoint. Searches are served from the old index throughout; if any step before the swap fails, the new index
+ * is deleted and the alias is left untouched.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "course-search.engine", havingValue = "elasticsearch", matchIfMissing = true)
+public class CourseReindexService {
+
+    public record ReindexReport(String index, Set<String> previous, long courses, Duration elapsed) {
+    }
+
+    private final CourseIndexManager courseIndexManager;
+    private final CourseSearchEngine courseSearchEngine;
+    private final CourseIngestPipeline courseIngestPipeline;
+    private final CatalogGeneration catalogGeneration;
+    private final TitleSuggestionIndex titleSuggestionIndex;
+    private final ColumnarBrowseIndex columnarBrowseIndex;
+    private final ObjectProvider<ChangeFeedSync> changeFeedSync;
+    private final int batchSize;
+    private final int retainedVersions;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CourseReindexService(CourseIndexManager courseIndexManager,
+                                CourseSearchEngine courseSearchEngine,
+                                CourseIngestPipeline courseIngestPipeline,
+                                CatalogGeneration catalogGeneration,
+                                TitleSuggestionIndex titleSuggestionIndex,
+                                ColumnarBrowseIndex columnarBrowseIndex,
+                                ObjectProvider<ChangeFeedSync> changeFeedSync,
+                                @Value("${course-search.reindex.batch-size:5000}") int batchSize,
+                                @Value("${course-search.reindex.retained-versions:1}") int retainedVersions) {
+        this.courseIndexManager = courseIndexManager;
+        this.courseSearchEngine = courseSearchEngine;
+        this.courseIngestPipeline = courseIngestPipeline;
+        this.catalogGeneration = catalogGeneration;
+        this.titleSuggestionIndex = titleSuggestionIndex;
+        this.columnarBrowseIndex = columnarBrowseIndex;
+        this.changeFeedSync = changeFeedSync;
+        this.batchSize = batchSize;
+        this.retainedVersions = retainedVersions;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public ReindexReport reindex() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reindex is already running");
+        }
+        try {
+            // Changes queue up in the change log during the copy and are applied to the new index after the swap
+            ChangeFeedSync sync = changeFeedSync.getIfAvailable();
+            ReindexReport report = sync == null ? rebuild() : sync.whilePaused(this::rebuild);
+
+            // The in-process indexes are rebuilt from the new index and swapped in while the old ones keep serving;
+            // only then does the generation move, so nothing cached under it comes from a half-built index
+            titleSuggestionIndex.rebuild();
+            columnarBrowseIndex.rebuild();
+            catalogGeneration.replaced();
+            deleteOldVersions(report.index());
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ReindexReport rebuild() {
+        long started = System.nanoTime();
+        Set<String> previous = courseIndexManager.servingIndices();
+        String index = courseIndexManager.createIngestIndex();
+        log.info("Reindexing {} into {}", previous, index);
+
+        try {
+            CourseIngestPipeline.IngestReport ingested;
+            try (Stream<CourseDocument> courses = courseSearchEngine.streamAll()) {
+                ingested = courseIngestPipeline.ingest(courses,
+                        batch -> courseIndexManager.bulkIndex(index, batch), batchSize);
+            }
+            if (ingested.failed() > 0) {
+                throw new IllegalStateException(ingested.failed() + " courses could not be indexed");
+            }
+
+            long count = courseIndexManager.prepareForServing(index);
+            if (count != ingested.indexed()) {
+                throw new IllegalStateException("Index holds " + count + " courses, expected " + ingested.indexed());
+            }
+            courseIndexManager.swap(index);
+
+            ReindexReport report = new ReindexReport(index, previous, count, Duration.ofNanos(System.nanoTime() - started));
+            log.info("Reindexed {} courses into {} in {} ms", count, index, report.elapsed().toMillis());
+            return report;
+        } catch (RuntimeException e) {
+            log.error("Reindex into {} failed, still serving from {}: {}", index, previous, e.getMessage());
+            try {
+                courseIndexManager.delete(index);
+            } catch (RuntimeException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+    }
+
+    // Keeps the new index plus the most recent previous versions for rollback
+    private void deleteOldVersions(String current) {
+        List<String> versions = courseIndexManager.versions();
+        int keep = versions.indexOf(current) - retainedVersions;
+        for (int i = 0; i < keep; i++) {
+            try {
+                courseIndexManager.delete(versions.get(i));
+            } catch (RuntimeException e) {
+                log.warn("Could not delete old index {}: {}", versions.get(i), e.getMessage());
+            }
+        }
+    }
+}
@@ -1,191 +1,143 @@
 package com.undoschool.coursesearch.service;
 
-import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
-import co.elastic.clients.elasticsearch._types.query_dsl.NumberRangeQuery;
-import co.elastic.clients.elasticsearch._types.query_dsl.DateRangeQuery;
-import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.undoschool.coursesearch.browse.ColumnarBrowseIndex;
+import com.undoschool.coursesearch.diagnostics.SlowQueryLog;
 import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.BatchSearchItem;
 import com.undoschool.coursesearch.dto.CourseSearchRequest;
 import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import com.undoschool.coursesearch.engine.InvalidSearchRequestException;
+import com.undoschool.coursesearch.resilience.CircuitOpenException;
+import com.undoschool.coursesearch.resilience.SearchCircuitBreaker;
+import com.undoschool.coursesearch.resilience.SearchHedger;
+import com.undoschool.coursesearch.suggest.TitleSuggestionIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.elasticsearch.client.elc.NativeQuery;
-import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
-import org.springframework.data.elasticsearch.core.SearchHit;
-import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CourseSearchService {
 
-    private final ElasticsearchOperations elasticsearchOperations;
+    private static final int MAX_SUGGESTIONS = 10;
 
-    public CourseSearchResponse searchCourses(CourseSearchRequest request) {
-        log.info("Searching courses with request: {}", request);
-
-        // Build the query
-        NativeQuery searchQuery = buildSearchQuery(request);
+    private final CourseSearchEngine courseSearchEngine;
+    private final SearchResultCache searchResultCache;
+    private final SearchCoalescer searchCoalescer;
+    private final TitleSuggestionIndex titleSuggestionIndex;
+    private final ColumnarBrowseIndex columnarBrowseIndex;
+    private final SearchHedger searchHedger;
+    private final SearchCircuitBreaker searchCircuitBreaker;
+    private final SlowQueryLog slowQueryLog;
 
-        // Execute search
-        SearchHits<CourseDocument> searchHits = elasticsearchOperations.search(searchQuery, CourseDocument.class);
-
-        // Extract results
-        List<CourseDocument> courses = searchHits.getSearchHits()
-                .stream()
-                .map(SearchHit::getContent)
-                .collect(Collectors.toList());
-
-        return CourseSearchResponse.builder()
-                .total(searchHits.getTotalHits())
-                .courses(courses)
-                .build();
-    }
+    @Value("${course-search.batch.max-size:20}")
+    private int maxBatchSize;
 
-    private NativeQuery buildSearchQuery(CourseSearchRequest request) {
-        BoolQuery.Builder boolQueryBuilder = new BoolQuery.Builder();
-
-        // Full-text search on title and description
-        if (request.getQ() != null && !request.getQ().trim().isEmpty()) {
-            Query multiMatchQuery = Query.of(q -> q
-                    .multiMatch(m -> m
-                            .query(request.getQ())
-                            .fields("title^2", "description") // Boost title field
-                            .fuzziness("AUTO") // Enable fuzzy matching for Assignment B
-                    )
-            );
-            boolQueryBuilder.must(multiMatchQuery);
-        }
+    public CourseSearchResponse searchCourses(CourseSearchRequest request) {
+        log.info("Searching courses with request: {}", request);
 
-        // Age range filters using NumberRangeQuery
-        if (request.getMinAge() != null) {
-            NumberRangeQuery minAgeRangeQuery = NumberRangeQuery.of(r -> r
-                    .field("maxAge")
-                    .gte(request.getMinAge().doubleValue())
-            );
-            Query minAgeQuery = Query.of(q -> q.range(r -> r.number(minAgeRangeQuery)));
-            boolQueryBuilder.filter(minAgeQuery);
+        // Cursor pages are tied to a point-in-time and never repeat, so they bypass the cache
+        if (request.getCursor() != null) {
+            return searchCircuitBreaker.call(null, () -> courseSearchEngine.search(request));
         }
-
-        if (request.getMaxAge() != null) {
-            NumberRangeQuery maxAgeRangeQuery = NumberRangeQuery.of(r -> r
-                    .field("minAge")
-                    .lte(request.getMaxAge().doubleValue())
-            );
-            Query maxAgeQuery = Query.of(q -> q.range(r -> r.number(maxAgeRangeQuery)));
-            boolQueryBuilder.filter(maxAgeQuery);
+        // Cache misses for the same request share one backend call while it is in flight
+        SearchRequestKey key = SearchRequestKey.of(request);
+        try {
+            return searchResultCache.get(key, () -> searchCoalescer.search(key, () -> search(key, request)));
+        } catch (CircuitOpenException e) {
+            // Outside the cache, so a stale fallback is never cached as the current result
+            return searchCircuitBreaker.fallback(key, e);
         }
+    }
 
-        // Category filter
-        if (request.getCategory() != null && !request.getCategory().trim().isEmpty()) {
-            Query categoryQuery = Query.of(q -> q
-                    .term(t -> t
-                            .field("category")
-                            .value(request.getCategory())
-                    )
-            );
-            boolQueryBuilder.filter(categoryQuery);
+    // Filter-only browses are answered from the columnar index once it is built; everything else goes to the engine,
+    // hedged and behind the circuit breaker, and timed for the slow-query log
+    private CourseSearchResponse search(SearchRequestKey key, CourseSearchRequest request) {
+        if (columnarBrowseIndex.isReady() && ColumnarBrowseIndex.handles(request)) {
+            return columnarBrowseIndex.search(request);
         }
+        return slowQueryLog.time(key, request, () -> searchCircuitBreaker.call(key,
+                () -> searchHedger.call(preference -> courseSearchEngine.search(request, preference))));
+    }
 
-        // Type filter
-        if (request.getType() != null) {
-            Query typeQuery = Query.of(q -> q
-                    .term(t -> t
-                            .field("type")
-                            .value(request.getType().name())
-                    )
-            );
-            boolQueryBuilder.filter(typeQuery);
+    // Cached items are answered directly; the rest go to the engine together, in request order
+    public List<BatchSearchItem> searchBatch(List<CourseSearchRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new InvalidSearchRequestException("A batch holds at most " + maxBatchSize + " searches");
         }
-
-        // Price range filters using NumberRangeQuery
-        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
-            NumberRangeQuery.Builder priceRangeBuilder = new NumberRangeQuery.Builder()
-                    .field("price");
-            
-            if (request.getMinPrice() != null) {
-                priceRangeBuilder.gte(request.getMinPrice());
+        log.info("Searching courses in a batch of {}", requests.size());
+
+        SearchResultCache.Snapshot cache = searchResultCache.snapshot();
+        BatchSearchItem[] items = new BatchSearchItem[requests.size()];
+        List<Integer> pending = new ArrayList<>();
+        List<SearchRequestKey> pendingKeys = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CourseSearchRequest request = requests.get(i);
+            if (request == null || request.getCursor() != null) {
+                items[i] = BatchSearchItem.failed(400, "Invalid request",
+                        request == null ? "Missing search request" : "Cursor paging is not supported in a batch");
+                continue;
             }
-            if (request.getMaxPrice() != null) {
-                priceRangeBuilder.lte(request.getMaxPrice());
+            SearchRequestKey key;
+            try {
+                key = SearchRequestKey.of(request);
+            } catch (InvalidSearchRequestException e) {
+                items[i] = BatchSearchItem.failed(400, "Invalid request", e.getMessage());
+                continue;
+            }
+            CourseSearchResponse cached = cache.getIfPresent(key);
+            if (cached != null) {
+                items[i] = BatchSearchItem.of(cached);
+            } else {
+                pending.add(i);
+                pendingKeys.add(key);
             }
-
-            NumberRangeQuery priceRangeQuery = priceRangeBuilder.build();
-            Query priceQuery = Query.of(q -> q.range(r -> r.number(priceRangeQuery)));
-            boolQueryBuilder.filter(priceQuery);
         }
 
-        // Date filter using DateRangeQuery
-        if (request.getStartDate() != null) {
-            String dateString = request.getStartDate().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "Z";
-            DateRangeQuery dateRangeQuery = DateRangeQuery.of(r -> r
-                    .field("nextSessionDate")
-                    .gte(dateString)
-            );
-            Query dateQuery = Query.of(q -> q.range(r -> r.date(dateRangeQuery)));
-            boolQueryBuilder.filter(dateQuery);
+        if (!pending.isEmpty()) {
+            List<BatchSearchItem> results = courseSearchEngine.searchBatch(pending.stream().map(requests::get).toList());
+            for (int j = 0; j < pending.size(); j++) {
+                BatchSearchItem result = results.get(j);
+                if (result.getResponse() != null) {
+                    cache.put(pendingKeys.get(j), result.getResponse());
+                }
+                items[pending.get(j)] = result;
+            }
         }
 
-        // Build the final query
-        Query finalQuery = Query.of(q -> q.bool(boolQueryBuilder.build()));
-
-        // Create pageable
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize());
-
-        // Build NativeQuery with sorting and pagination
-        return NativeQuery.builder()
-                .withQuery(finalQuery)
-                .withPageable(pageable)
-                .withSort(getSortOptions(request.getSort()))
-                .build();
-    }
-
-    private Sort getSortOptions(String sortType) {
-        switch (sortType.toLowerCase()) {
-            case "priceasc":
-                return Sort.by(Sort.Direction.ASC, "price");
-            case "pricedesc":
-                return Sort.by(Sort.Direction.DESC, "price");
-            case "upcoming":
-            default:
-                return Sort.by(Sort.Direction.ASC, "nextSessionDate");
+        for (int i = 0; i < items.length; i++) {
+            if (requests.get(i) != null) {
+                items[i].setFields(requests.get(i).getFields());
+            }
         }
+        return Arrays.asList(items);
     }
 
     // Assignment B: Autocomplete suggestions
     public List<String> getSuggestions(String query) {
+        return getSuggestions(query, null, null);
+    }
+
+    // Scoped to a category and/or type when given (blank category means any)
+    public List<String> getSuggestions(String query, String category, CourseDocument.CourseType type) {
         if (query == null || query.trim().isEmpty()) {
             return new ArrayList<>();
         }
+        String scope = category == null || category.isBlank() ? null : category.trim();
 
-        Query suggestionQuery = Query.of(q -> q
-                .match(m -> m
-                        .field("titleSuggest")
-                        .query(query)
-                )
-        );
-
-        NativeQuery searchQuery = NativeQuery.builder()
-                .withQuery(suggestionQuery)
-                .withMaxResults(10)
-                .build();
-
-        SearchHits<CourseDocument> searchHits = elasticsearchOperations.search(searchQuery, CourseDocument.class);
-
-        return searchHits.getSearchHits()
-                .stream()
-                .map(hit -> hit.getContent().getTitle())
-                .distinct()
-                .limit(10)
-                .collect(Collectors.toList());
+        // Unscoped suggestions are served in process once the prefix index is built, independent of backend load;
+        // scoped ones go to the engine's completion contexts
+        if (scope == null && type == null && titleSuggestionIndex.isReady()) {
+            return titleSuggestionIndex.suggest(query, MAX_SUGGESTIONS);
+        }
+        return searchCoalescer.suggest(query, scope, type,
+                () -> courseSearchEngine.suggest(query, scope, type, MAX_SUGGESTIONS));
     }
 }
@@ -1,27 +1,37 @@
 package com.undoschool.coursesearch.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import com.undoschool.coursesearch.document.CourseDocument;
-import com.undoschool.coursesearch.repository.CourseRepository;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import com.undoschool.coursesearch.snapshot.CatalogSnapshotService;
+import com.undoschool.coursesearch.sync.ChangeFeedSync;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DataLoaderService implements CommandLineRunner {
 
-    private final CourseRepository courseRepository;
+    private final CourseSearchEngine courseSearchEngine;
+    private final CourseIngestPipeline courseIngestPipeline;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ObjectProvider<ChangeFeedSync> changeFeedSync;
     private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+
+    // JSON array or NDJSON, e.g. file:/data/catalog.ndjson
+    @Value("${course-search.loader.source:classpath:sample-courses.json}")
+    private String source;
 
     @Override
     public void run(String... args) throws Exception {
@@ -33,31 +43,33 @@ public class DataLoaderService implements CommandLineRunner {
             log.info("Loading sample course data...");
 
             // Check if data already exists
-            long count = courseRepository.count();
+            long count = courseSearchEngine.count();
             if (count > 0) {
                 log.info("Sample data already loaded. Found {} courses in index.", count);
                 return;
             }
 
+            // A snapshot from the last run is much cheaper to load than the catalog source
+            if (catalogSnapshotService.restore()) {
+                return;
+            }
+
             // Configure ObjectMapper for LocalDateTime
             objectMapper.registerModule(new JavaTimeModule());
 
-            // Load sample data from JSON file
-            ClassPathResource resource = new ClassPathResource("sample-courses.json");
-            InputStream inputStream = resource.getInputStream();
-
-            List<CourseDocument> courses = objectMapper.readValue(
-                    inputStream,
-                    new TypeReference<List<CourseDocument>>() {}
-            );
+            // Stream the catalog into the search engine in bulk batches
+            Resource resource = resourceLoader.getResource(source);
+            try (InputStream inputStream = resource.getInputStream()) {
+                CourseIngestPipeline.IngestReport report = courseIngestPipeline.ingest(inputStream);
 
-            // Set titleSuggest field for autocomplete
-            courses.forEach(course -> course.setTitleSuggest(course.getTitle()));
-
-            // Bulk save to Elasticsearch
-            courseRepository.saveAll(courses);
-
-            log.info("Successfully loaded {} courses into Elasticsearch", courses.size());
+                log.info("Successfully loaded {} courses from {} into the search engine", report.indexed(), source);
+            }
+            // None of the changes synced before are in a catalog loaded from source, so the change log is replayed
+            ChangeFeedSync sync = changeFeedSync.getIfAvailable();
+            if (sync != null) {
+                sync.rewind(null);
+            }
+            catalogSnapshotService.write();
 
         } catch (IOException e) {
             log.error("Error loading sample data: {}", e.getMessage(), e);
@@ -0,0 +1,119 @@
+package com.undoschool.coursesearch.service;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.SearchBackendBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for backend calls: while a search (or suggest prefix) is in flight, identical concurrent calls wait
+ * for its result instead of issuing their own, and all of them get the same response or the same exception.
+ * Nothing is kept once the call completes; repeat traffic over time is the {@link SearchResultCache}'s job.
+ * <p>
+ * Keys carry the catalog generation, so a call made after a catalog change never joins one started before it.
+ */
+@Component
+public class SearchCoalescer {
+
+    static final String COALESCED_COUNTER = "course.search.coalesced";
+
+    private final ConcurrentMap<SearchKey, CompletableFuture<CourseSearchResponse>> searches = new ConcurrentHashMap<>();
+    private final ConcurrentMap<SuggestKey, CompletableFuture<List<String>>> suggestions = new ConcurrentHashMap<>();
+    private final CatalogGeneration catalogGeneration;
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final Counter coalescedSearches;
+    private final Counter coalescedSuggestions;
+
+    public SearchCoalescer(CatalogGeneration catalogGeneration,
+                           MeterRegistry meterRegistry,
+                           @Value("${course-search.coalescing.enabled:true}") boolean enabled,
+                           @Value("${course-search.coalescing.max-wait:5s}") Duration maxWait) {
+        this.catalogGeneration = catalogGeneration;
+        this.enabled = enabled;
+        this.maxWait = maxWait;
+        this.coalescedSearches = meterRegistry.counter(COALESCED_COUNTER, "endpoint", "search");
+        this.coalescedSuggestions = meterRegistry.counter(COALESCED_COUNTER, "endpoint", "suggest");
+    }
+
+    public CourseSearchResponse search(SearchRequestKey request, Supplier<CourseSearchResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return join(searches, new SearchKey(catalogGeneration.current(), request), loader, coalescedSearches);
+    }
+
+    public List<String> suggest(String prefix, Supplier<List<String>> loader) {
+        return suggest(prefix, null, null, loader);
+    }
+
+    public List<String> suggest(String prefix, String category, CourseDocument.CourseType type, Supplier<List<String>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String normalized = prefix.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return join(suggestions, new SuggestKey(catalogGeneration.current(), normalized, category, type), loader, coalescedSuggestions);
+    }
+
+    // The first caller for a key runs the loader on its own thread; later ones wait up to max-wait for its outcome
+    private <K, V> V join(ConcurrentMap<K, CompletableFuture<V>> inFlight, K key, Supplier<V> loader, Counter coalesced) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            return await(leader);
+        }
+
+        try {
+            V result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private <V> V await(CompletableFuture<V> leader) {
+        try {
+            return leader.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new SearchBackendBusyException("Identical search still running after " + maxWait.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            // Rethrow the leader's own exception so every waiter maps to the same response status
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchBackendBusyException("Interrupted while waiting for an identical search");
+        }
+    }
+
+    private record SearchKey(long generation, SearchRequestKey request) {
+    }
+
+    private record SuggestKey(long generation, String prefix, String category, CourseDocument.CourseType type) {
+    }
+}
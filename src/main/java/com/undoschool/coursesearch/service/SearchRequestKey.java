@@ -0,0 +1,76 @@
+package com.undoschool.coursesearch.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.engine.CourseFacet;
+import com.undoschool.coursesearch.engine.CourseFieldProjection;
+import com.undoschool.coursesearch.engine.CoursePaging;
+import com.undoschool.coursesearch.engine.CourseSortOptions;
+import lombok.Value;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Canonical form of a {@link CourseSearchRequest}: requests that the engines answer identically
+ * map to equal keys (q trimmed and lowercased like the analyzer does, sort resolved, paging defaulted,
+ * fields resolved to the projected property set). The category is an exact match, so it is kept as given.
+ * Serialized as such in the slow-query log.
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SearchRequestKey {
+    String q;
+    Integer minAge;
+    Integer maxAge;
+    String category;
+    CourseDocument.CourseType type;
+    Double minPrice;
+    Double maxPrice;
+    LocalDateTime startDate;
+    @JsonSerialize(using = ToStringSerializer.class)
+    Sort sort;
+    int page;
+    int size;
+    String fields;
+    Set<CourseFacet> facets;
+
+    public static SearchRequestKey of(CourseSearchRequest request) {
+        CoursePaging.validate(request);
+        return new SearchRequestKey(
+                normalizeQuery(request.getQ()),
+                request.getMinAge(),
+                request.getMaxAge(),
+                blankCategoryToNull(request.getCategory()),
+                request.getType(),
+                request.getMinPrice(),
+                request.getMaxPrice(),
+                request.getStartDate(),
+                CourseSortOptions.getSortOptions(request.getSort()),
+                request.getPage(),
+                request.getSize(),
+                Objects.toString(CourseFieldProjection.parse(request.getFields()), null),
+                CourseFacet.parse(request.getFacets()));
+    }
+
+    private static String normalizeQuery(String q) {
+        String trimmed = blankToNull(q);
+        return trimmed == null ? null : trimmed.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // The engines match the category exactly, untrimmed, so only a blank one (ignored by them) is dropped
+    private static String blankCategoryToNull(String category) {
+        return category == null || category.trim().isEmpty() ? null : category;
+    }
+
+    // Blank values are ignored by the query builders, so they are equivalent to no value
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+}
@@ -0,0 +1,94 @@
+package com.undoschool.coursesearch.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.undoschool.coursesearch.catalog.CatalogChangedEvent;
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of search responses keyed on the normalized request and the catalog generation,
+ * so results computed before a catalog change are never served after it.
+ */
+@Slf4j
+@Component
+public class SearchResultCache {
+
+    private final Cache<Key, CourseSearchResponse> cache;
+    private final CatalogGeneration catalogGeneration;
+    private final boolean enabled;
+
+    public SearchResultCache(CatalogGeneration catalogGeneration,
+                             MeterRegistry meterRegistry,
+                             @Value("${course-search.cache.enabled:true}") boolean enabled,
+                             @Value("${course-search.cache.max-size:10000}") long maxSize,
+                             @Value("${course-search.cache.ttl:5m}") Duration ttl) {
+        this.catalogGeneration = catalogGeneration;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "courseSearchResults");
+    }
+
+    public CourseSearchResponse get(SearchRequestKey request, Supplier<CourseSearchResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        // Read the generation before searching: a write racing with the search then only makes this entry unreachable
+        Key key = new Key(catalogGeneration.current(), request);
+        CourseSearchResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CourseSearchResponse response = loader.get();
+        cache.put(key, response);
+        return response;
+    }
+
+    // Lookups and writes for several requests, pinned to the generation read before any of them is searched
+    public Snapshot snapshot() {
+        return new Snapshot(catalogGeneration.current());
+    }
+
+    public final class Snapshot {
+
+        private final long generation;
+
+        private Snapshot(long generation) {
+            this.generation = generation;
+        }
+
+        public CourseSearchResponse getIfPresent(SearchRequestKey request) {
+            return enabled ? cache.getIfPresent(new Key(generation, request)) : null;
+        }
+
+        public void put(SearchRequestKey request, CourseSearchResponse response) {
+            if (enabled) {
+                cache.put(new Key(generation, request), response);
+            }
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.debug("Catalog generation {} - dropping {} cached search results", event.getGeneration(), cache.estimatedSize());
+        cache.invalidateAll();
+    }
+
+    private record Key(long generation, SearchRequestKey request) {
+    }
+}
@@ -0,0 +1,252 @@
+package com.undoschool.coursesearch.snapshot;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Read-only, memory-mapped catalog in a compact binary layout written by {@link CatalogSnapshotWriter}:
+ * <pre>
+ * header   magic, version, course count, string heap size, origin source, catalog version and change feed
+ *          checkpoint (length-prefixed UTF-8, length {@code -1} for none)
+ *          category, type and gradeRange dictionaries (count, then length-prefixed UTF-8 values)
+ * columns  minAge, maxAge (int), price (double), nextSessionDate (epoch millis), category, type, gradeRange (int
+ *          dictionary codes), then offset (long) and length (int) columns for id, title and description
+ * heap     UTF-8 string bytes, in chunks no string straddles
+ * </pre>
+ * Opening maps the file without reading it, so it costs the same for any catalog size; rows are decoded on access
+ * from the page cache, off the heap. Missing values are {@link #NULL_INT}, {@code NaN}, {@link #NULL_LONG}, code
+ * {@code -1} and length {@code -1}. {@code titleSuggest} is not stored: ingest always sets it to the title.
+ */
+public final class CatalogSnapshot {
+
+    public static final int NULL_INT = Integer.MIN_VALUE;
+    public static final long NULL_LONG = Long.MIN_VALUE;
+
+    static final int MAGIC = 0x43534E50; // "CSNP"
+    static final int VERSION = 3;
+    static final int STRING_COLUMNS = 3;
+    static final int ID = 0;
+    static final int TITLE = 1;
+    static final int DESCRIPTION = 2;
+    static final long HEAP_CHUNK = 1L << 30;
+
+    private final Path path;
+    private final int size;
+    private final Origin origin;
+    private final List<String> categories;
+    private final List<CourseDocument.CourseType> types;
+    private final List<String> gradeRanges;
+    private final ByteBuffer minAge;
+    private final ByteBuffer maxAge;
+    private final ByteBuffer price;
+    private final ByteBuffer nextSessionDate;
+    private final ByteBuffer category;
+    private final ByteBuffer type;
+    private final ByteBuffer gradeRange;
+    private final ByteBuffer[] offsets = new ByteBuffer[STRING_COLUMNS];
+    private final ByteBuffer[] lengths = new ByteBuffer[STRING_COLUMNS];
+    private final ByteBuffer[] heap;
+
+    private CatalogSnapshot(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+        if (header.remaining() < 20 || header.getInt() != MAGIC) {
+            throw new IOException(path + " is not a catalog snapshot");
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IOException(path + " has snapshot version " + version + ", expected " + VERSION);
+        }
+        size = header.getInt();
+        long heapSize = header.getLong();
+        origin = new Origin(string(header), string(header), string(header));
+        categories = dictionary(header);
+        types = dictionary(header).stream().map(CourseDocument.CourseType::valueOf).toList();
+        gradeRanges = dictionary(header);
+
+        long position = header.position();
+        minAge = map(channel, position = align(position), (long) size * Integer.BYTES);
+        maxAge = map(channel, position = align(position + minAge.capacity()), (long) size * Integer.BYTES);
+        price = map(channel, position = align(position + maxAge.capacity()), (long) size * Double.BYTES);
+        nextSessionDate = map(channel, position = align(position + price.capacity()), (long) size * Long.BYTES);
+        category = map(channel, position = align(position + nextSessionDate.capacity()), (long) size * Integer.BYTES);
+        type = map(channel, position = align(position + category.capacity()), (long) size * Integer.BYTES);
+        gradeRange = map(channel, position = align(position + type.capacity()), (long) size * Integer.BYTES);
+        long end = position + gradeRange.capacity();
+        for (int column = 0; column < STRING_COLUMNS; column++) {
+            offsets[column] = map(channel, position = align(end), (long) size * Long.BYTES);
+            lengths[column] = map(channel, position = align(position + offsets[column].capacity()), (long) size * Integer.BYTES);
+            end = position + lengths[column].capacity();
+        }
+
+        long heapStart = align(end);
+        if (heapStart + heapSize != channel.size()) {
+            throw new IOException(path + " is truncated: expected " + (heapStart + heapSize) + " bytes, found " + channel.size());
+        }
+        heap = new ByteBuffer[(int) ((heapSize + HEAP_CHUNK - 1) / HEAP_CHUNK)];
+        for (int chunk = 0; chunk < heap.length; chunk++) {
+            long from = chunk * HEAP_CHUNK;
+            heap[chunk] = map(channel, heapStart + from, Math.min(HEAP_CHUNK, heapSize - from));
+        }
+    }
+
+    // The mappings outlive the channel, so nothing stays open
+    public static CatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new CatalogSnapshot(path, channel);
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Origin origin() {
+        return origin;
+    }
+
+    public List<String> categories() {
+        return categories;
+    }
+
+    public List<CourseDocument.CourseType> types() {
+        return types;
+    }
+
+    public List<String> gradeRanges() {
+        return gradeRanges;
+    }
+
+    public int minAge(int row) {
+        return minAge.getInt(row * Integer.BYTES);
+    }
+
+    public int maxAge(int row) {
+        return maxAge.getInt(row * Integer.BYTES);
+    }
+
+    public double price(int row) {
+        return price.getDouble(row * Double.BYTES);
+    }
+
+    public long nextSessionDate(int row) {
+        return nextSessionDate.getLong(row * Long.BYTES);
+    }
+
+    public int categoryCode(int row) {
+        return category.getInt(row * Integer.BYTES);
+    }
+
+    public int typeCode(int row) {
+        return type.getInt(row * Integer.BYTES);
+    }
+
+    public int gradeRangeCode(int row) {
+        return gradeRange.getInt(row * Integer.BYTES);
+    }
+
+    public String id(int row) {
+        return string(ID, row);
+    }
+
+    public String title(int row) {
+        return string(TITLE, row);
+    }
+
+    public String description(int row) {
+        return string(DESCRIPTION, row);
+    }
+
+    public CourseDocument document(int row) {
+        int minAge = minAge(row);
+        int maxAge = maxAge(row);
+        double price = price(row);
+        long nextSessionDate = nextSessionDate(row);
+        String title = title(row);
+        return CourseDocument.builder()
+                .id(id(row))
+                .title(title)
+                .description(description(row))
+                .category(decode(categories, categoryCode(row)))
+                .type(decode(types, typeCode(row)))
+                .gradeRange(decode(gradeRanges, gradeRangeCode(row)))
+                .minAge(minAge != NULL_INT ? minAge : null)
+                .maxAge(maxAge != NULL_INT ? maxAge : null)
+                .price(!Double.isNaN(price) ? price : null)
+                .nextSessionDate(nextSessionDate != NULL_LONG ? Instant.ofEpochMilli(nextSessionDate) : null)
+                .titleSuggest(title)
+                .build();
+    }
+
+    // Decodes each course as the stream reaches it
+    public Stream<CourseDocument> stream() {
+        return IntStream.range(0, size).mapToObj(this::document);
+    }
+
+    private String string(int column, int row) {
+        int length = lengths[column].getInt(row * Integer.BYTES);
+        if (length < 0) {
+            return null;
+        }
+        long offset = offsets[column].getLong(row * Long.BYTES);
+        byte[] bytes = new byte[length];
+        heap[(int) (offset / HEAP_CHUNK)].get((int) (offset % HEAP_CHUNK), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * What the snapshot was taken from: the loader source it was ingested from, the engine's
+     * {@link com.undoschool.coursesearch.engine.CourseSearchEngine#catalogVersion() catalog version} at the time and
+     * the {@link com.undoschool.coursesearch.sync.ChangeFeedSync#checkpoint() change feed checkpoint} its contents
+     * include. Any is null when unknown; a null checkpoint means no change has been synced into it.
+     */
+    public record Origin(String source, String catalogVersion, String changeFeedCheckpoint) {
+    }
+
+    private static <T> T decode(List<T> dictionary, int code) {
+        return code >= 0 ? dictionary.get(code) : null;
+    }
+
+    private static List<String> dictionary(ByteBuffer header) {
+        int count = header.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(string(header));
+        }
+        return List.copyOf(values);
+    }
+
+    private static String string(ByteBuffer header) {
+        int length = header.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        header.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
@@ -0,0 +1,207 @@
+package com.undoschool.coursesearch.snapshot;
+
+import com.undoschool.coursesearch.catalog.CatalogChangedEvent;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import com.undoschool.coursesearch.sync.ChangeFeedSync;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a {@link CatalogSnapshot} of the indexed catalog on disk so a restart maps it instead of re-reading the
+ * catalog: the in-memory engine restores from it rather than parsing the JSON source, and the title suggestion index
+ * builds from it rather than scrolling Elasticsearch. It is rewritten after ingest and, once the catalog changed,
+ * every {@code write-interval}.
+ * <p>
+ * The snapshot records its {@link CatalogSnapshot.Origin origin}. It is only restored while the loader source is
+ * unchanged, and only built from while the engine still reports the catalog version it was taken at; a snapshot taken
+ * or restored by this process is trusted until the first change. It also records the change feed checkpoint its
+ * contents include, and a restore rewinds change feed sync to it, so changes synced after the snapshot are replayed.
+ */
+@Slf4j
+@Component
+public class CatalogSnapshotService {
+
+    private final CourseSearchEngine courseSearchEngine;
+    private final ObjectProvider<ChangeFeedSync> changeFeedSync;
+    private final ResourceLoader resourceLoader;
+    private final boolean enabled;
+    private final Path path;
+    private final String source;
+    private final int batchSize;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Dropped on the first change, so it is only handed out while it matches the catalog
+    private volatile CatalogSnapshot snapshot;
+    // Whether the snapshot was written or restored by this process, rather than mapped from an earlier run
+    private volatile boolean verified;
+    private volatile boolean dirty;
+
+    public CatalogSnapshotService(CourseSearchEngine courseSearchEngine,
+                                  ObjectProvider<ChangeFeedSync> changeFeedSync,
+                                  ResourceLoader resourceLoader,
+                                  @Value("${course-search.snapshot.enabled:true}") boolean enabled,
+                                  @Value("${course-search.snapshot.path:catalog.snapshot}") Path path,
+                                  @Value("${course-search.loader.source:classpath:sample-courses.json}") String source,
+                                  @Value("${course-search.loader.batch-size:1000}") int batchSize) {
+        this.courseSearchEngine = courseSearchEngine;
+        this.changeFeedSync = changeFeedSync;
+        this.resourceLoader = resourceLoader;
+        this.enabled = enabled;
+        this.path = path;
+        this.source = source;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        if (Files.exists(path)) {
+            long started = System.nanoTime();
+            try {
+                snapshot = CatalogSnapshot.open(path);
+                log.info("Mapped catalog snapshot {} with {} courses in {} ms",
+                        path, snapshot.size(), (System.nanoTime() - started) / 1_000_000);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Ignoring catalog snapshot {}: {}", path, e.getMessage());
+            }
+        }
+        // Without a usable snapshot, the next scheduled write takes one
+        dirty = snapshot == null;
+    }
+
+    // The snapshot, as long as no write has happened since and it was taken from what the engine serves now
+    public Optional<CatalogSnapshot> current() {
+        CatalogSnapshot current = snapshot;
+        if (current == null || current.size() != courseSearchEngine.count()) {
+            return Optional.empty();
+        }
+        if (verified) {
+            return Optional.of(current);
+        }
+        String catalogVersion = courseSearchEngine.catalogVersion();
+        return catalogVersion != null && catalogVersion.equals(current.origin().catalogVersion())
+                ? Optional.of(current) : Optional.empty();
+    }
+
+    // Loads an empty engine from the snapshot in bulk batches; false when there is no snapshot of the current source
+    public boolean restore() {
+        CatalogSnapshot restored = snapshot;
+        if (restored == null) {
+            return false;
+        }
+        String sourceVersion = sourceVersion();
+        if (sourceVersion == null || !sourceVersion.equals(restored.origin().source())) {
+            log.info("Not restoring catalog snapshot {}: it was taken from {}, the source is now {}",
+                    path, restored.origin().source(), sourceVersion);
+            return false;
+        }
+        long started = System.nanoTime();
+        List<CourseDocument> batch = new ArrayList<>(batchSize);
+        for (int row = 0; row < restored.size(); row++) {
+            batch.add(restored.document(row));
+            if (batch.size() == batchSize) {
+                courseSearchEngine.bulkIndex(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            courseSearchEngine.bulkIndex(batch);
+        }
+        courseSearchEngine.refresh();
+        ChangeFeedSync sync = changeFeedSync.getIfAvailable();
+        if (sync != null) {
+            try {
+                sync.rewind(restored.origin().changeFeedCheckpoint());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // The writes above only put back what the snapshot holds, though an engine with versions is at a new one now
+        snapshot = restored;
+        verified = true;
+        dirty = courseSearchEngine.catalogVersion() != null;
+        log.info("Restored {} courses from catalog snapshot {} in {} ms",
+                restored.size(), path, (System.nanoTime() - started) / 1_000_000);
+        return true;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.isCleared() || event.isReplaced() || !event.getSaved().isEmpty() || !event.getDeletedIds().isEmpty()) {
+            snapshot = null;
+            verified = false;
+            dirty = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${course-search.snapshot.write-interval:5m}",
+            initialDelayString = "${course-search.snapshot.write-interval:5m}")
+    public void writeIfChanged() {
+        if (dirty) {
+            write();
+        }
+    }
+
+    // Writes the whole catalog from the engine; a change while it runs leaves the snapshot marked for the next write
+    public void write() {
+        if (!enabled || !writeLock.tryLock()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            dirty = false;
+            // Read before the catalog, so a write in between leaves an older version than the contents and is not trusted,
+            // and a checkpoint the contents include; replaying changes past it again is harmless
+            ChangeFeedSync sync = changeFeedSync.getIfAvailable();
+            CatalogSnapshot.Origin origin = new CatalogSnapshot.Origin(sourceVersion(), courseSearchEngine.catalogVersion(),
+                    sync != null ? sync.checkpoint() : null);
+            int count;
+            try (Stream<CourseDocument> courses = courseSearchEngine.streamAll()) {
+                count = CatalogSnapshotWriter.write(path, origin, courses);
+            }
+            CatalogSnapshot written = CatalogSnapshot.open(path);
+            if (!dirty) {
+                snapshot = written;
+                verified = true;
+            }
+            log.info("Wrote catalog snapshot {} with {} courses ({} bytes) in {} ms",
+                    path, count, Files.size(path), (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            dirty = true;
+            log.warn("Could not write catalog snapshot {}: {}", path, e.getMessage(), e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // The loader source's location, modification time and length; null when it cannot be read
+    private String sourceVersion() {
+        Resource resource = resourceLoader.getResource(source);
+        try {
+            return resource.getURI() + " " + resource.lastModified() + " " + resource.contentLength();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
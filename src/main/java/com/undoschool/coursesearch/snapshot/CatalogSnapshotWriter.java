@@ -0,0 +1,224 @@
+package com.undoschool.coursesearch.snapshot;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes the {@link CatalogSnapshot} format in one pass over the courses. Each column goes to its own temporary
+ * file as it is produced and the files are concatenated at the end, so writing takes constant heap apart from the
+ * dictionaries. The snapshot replaces the target atomically.
+ */
+public final class CatalogSnapshotWriter {
+
+    private CatalogSnapshotWriter() {
+    }
+
+    // Returns the number of courses written
+    public static int write(Path target, CatalogSnapshot.Origin origin, Stream<CourseDocument> courses) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path work = Files.createTempDirectory(dir, "." + target.getFileName() + "-");
+        try (Columns columns = new Columns(work)) {
+            courses.forEach(columns::add);
+            // Flush every column before they are concatenated
+            columns.close();
+            Path temp = work.resolve("snapshot");
+            columns.assemble(temp, origin);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return columns.count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            try (Stream<Path> files = Files.list(work)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(work);
+        }
+    }
+
+    private static final class Columns implements Closeable {
+
+        private final Path dir;
+        private final Map<String, Integer> categories = new LinkedHashMap<>();
+        private final Map<String, Integer> types = new LinkedHashMap<>();
+        private final Map<String, Integer> gradeRanges = new LinkedHashMap<>();
+        private final List<Column> fixed = new ArrayList<>();
+        private final Column minAge;
+        private final Column maxAge;
+        private final Column price;
+        private final Column nextSessionDate;
+        private final Column category;
+        private final Column type;
+        private final Column gradeRange;
+        private final StringColumn[] strings;
+        private final Column heap;
+        private long heapSize;
+        private int count;
+
+        private Columns(Path dir) throws IOException {
+            this.dir = dir;
+            minAge = fixed("minAge");
+            maxAge = fixed("maxAge");
+            price = fixed("price");
+            nextSessionDate = fixed("nextSessionDate");
+            category = fixed("category");
+            type = fixed("type");
+            gradeRange = fixed("gradeRange");
+            strings = new StringColumn[CatalogSnapshot.STRING_COLUMNS];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = new StringColumn(fixed("offsets" + i), fixed("lengths" + i));
+            }
+            heap = new Column(dir.resolve("heap"));
+        }
+
+        private Column fixed(String name) throws IOException {
+            Column column = new Column(dir.resolve(name));
+            fixed.add(column);
+            return column;
+        }
+
+        private void add(CourseDocument course) {
+            try {
+                minAge.out.writeInt(course.getMinAge() != null ? course.getMinAge() : CatalogSnapshot.NULL_INT);
+                maxAge.out.writeInt(course.getMaxAge() != null ? course.getMaxAge() : CatalogSnapshot.NULL_INT);
+                price.out.writeDouble(course.getPrice() != null ? course.getPrice() : Double.NaN);
+                nextSessionDate.out.writeLong(course.getNextSessionDate() != null
+                        ? course.getNextSessionDate().toEpochMilli() : CatalogSnapshot.NULL_LONG);
+                category.out.writeInt(code(categories, course.getCategory()));
+                type.out.writeInt(code(types, course.getType() != null ? course.getType().name() : null));
+                gradeRange.out.writeInt(code(gradeRanges, course.getGradeRange()));
+                string(strings[CatalogSnapshot.ID], course.getId());
+                string(strings[CatalogSnapshot.TITLE], course.getTitle());
+                string(strings[CatalogSnapshot.DESCRIPTION], course.getDescription());
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static int code(Map<String, Integer> dictionary, String value) {
+            return value == null ? -1 : dictionary.computeIfAbsent(value, v -> dictionary.size());
+        }
+
+        // Strings never straddle a heap chunk, so each one can be read from a single mapping
+        private void string(StringColumn column, String value) throws IOException {
+            if (value == null) {
+                column.offsets.out.writeLong(0);
+                column.lengths.out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            long chunkEnd = (heapSize / CatalogSnapshot.HEAP_CHUNK + 1) * CatalogSnapshot.HEAP_CHUNK;
+            if (heapSize + bytes.length > chunkEnd) {
+                heap.out.write(new byte[(int) (chunkEnd - heapSize)]);
+                heapSize = chunkEnd;
+            }
+            column.offsets.out.writeLong(heapSize);
+            column.lengths.out.writeInt(bytes.length);
+            heap.out.write(bytes);
+            heapSize += bytes.length;
+        }
+
+        private void assemble(Path target, CatalogSnapshot.Origin origin) throws IOException {
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                DataOutputStream header = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out)));
+                header.writeInt(CatalogSnapshot.MAGIC);
+                header.writeInt(CatalogSnapshot.VERSION);
+                header.writeInt(count);
+                header.writeLong(heapSize);
+                string(header, origin.source());
+                string(header, origin.catalogVersion());
+                string(header, origin.changeFeedCheckpoint());
+                dictionary(header, categories);
+                dictionary(header, types);
+                dictionary(header, gradeRanges);
+                header.flush();
+
+                for (Column column : fixed) {
+                    pad(out);
+                    append(out, column.path);
+                }
+                pad(out);
+                append(out, heap.path);
+                out.force(true);
+            }
+        }
+
+        private static void dictionary(DataOutputStream header, Map<String, Integer> dictionary) throws IOException {
+            header.writeInt(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                string(header, value);
+            }
+        }
+
+        private static void string(DataOutputStream header, String value) throws IOException {
+            if (value == null) {
+                header.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            header.writeInt(bytes.length);
+            header.write(bytes);
+        }
+
+        // Columns start on 8-byte boundaries
+        private static void pad(FileChannel out) throws IOException {
+            long padding = (8 - out.position() % 8) % 8;
+            if (padding > 0) {
+                out.write(ByteBuffer.allocate((int) padding));
+            }
+        }
+
+        private static void append(FileChannel out, Path column) throws IOException {
+            try (FileChannel in = FileChannel.open(column, StandardOpenOption.READ)) {
+                long size = in.size();
+                long copied = 0;
+                while (copied < size) {
+                    copied += in.transferTo(copied, size - copied, out);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (Column column : fixed) {
+                column.out.close();
+            }
+            heap.out.close();
+        }
+    }
+
+    private static final class Column {
+
+        private final Path path;
+        private final DataOutputStream out;
+
+        private Column(Path path) throws IOException {
+            this.path = path;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+        }
+    }
+
+    private record StringColumn(Column offsets, Column lengths) {
+    }
+}
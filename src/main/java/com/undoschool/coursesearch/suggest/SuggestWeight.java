@@ -0,0 +1,78 @@
+package com.undoschool.coursesearch.suggest;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * How titles are ranked among suggestions matching the same number of query terms
+ * ({@code course-search.suggest.weight}).
+ */
+public enum SuggestWeight {
+
+    // Titles shared by more courses first
+    COURSE_COUNT {
+        @Override
+        long weigh(Collection<Instant> nextSessionDates) {
+            return nextSessionDates.size();
+        }
+
+        // A single course cannot know how many others share its title; that is counted among the matches instead
+        @Override
+        public int completionWeight(CourseDocument course) {
+            return 1;
+        }
+
+        @Override
+        public List<String> rank(List<String> titles, int limit) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            titles.forEach(title -> counts.merge(title, 1, Integer::sum));
+            return counts.entrySet()
+                    .stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+    },
+
+    // Titles with the soonest next session first
+    UPCOMING {
+        @Override
+        long weigh(Collection<Instant> nextSessionDates) {
+            return nextSessionDates.stream()
+                    .filter(Objects::nonNull)
+                    .mapToLong(date -> -date.getEpochSecond())
+                    .max()
+                    .orElse(Long.MIN_VALUE);
+        }
+
+        // Completion weights are non-negative ints: minutes since the epoch, counted down from Integer.MAX_VALUE
+        @Override
+        public int completionWeight(CourseDocument course) {
+            if (course.getNextSessionDate() == null) {
+                return 0;
+            }
+            long minutes = Math.max(0, Math.min(Integer.MAX_VALUE - 1L, course.getNextSessionDate().getEpochSecond() / 60));
+            return (int) (Integer.MAX_VALUE - minutes);
+        }
+
+        @Override
+        public List<String> rank(List<String> titles, int limit) {
+            return titles.stream().distinct().limit(limit).toList();
+        }
+    };
+
+    abstract long weigh(Collection<Instant> nextSessionDates);
+
+    // Weight of one course's entry in the Elasticsearch completion field
+    public abstract int completionWeight(CourseDocument course);
+
+    // Distinct titles from completion matches, which arrive highest weight first and once per course
+    public abstract List<String> rank(List<String> titles, int limit);
+}
@@ -0,0 +1,262 @@
+package com.undoschool.coursesearch.suggest;
+
+import com.undoschool.coursesearch.catalog.CatalogChangedEvent;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import com.undoschool.coursesearch.engine.TextAnalysis;
+import com.undoschool.coursesearch.snapshot.CatalogSnapshot;
+import com.undoschool.coursesearch.snapshot.CatalogSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process autocomplete over course titles, built from the engine (or a current catalog snapshot) at startup
+ * and kept current from {@link CatalogChangedEvent}s; a rebuild fills a new index while the current one keeps serving.
+ * Matching follows the search_as_you_type bool_prefix query: whole-word terms plus a prefix on the last term,
+ * ranked by matched terms then by {@link SuggestWeight}.
+ */
+@Slf4j
+@Component
+public class TitleSuggestionIndex {
+
+    private final CourseSearchEngine courseSearchEngine;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final SuggestWeight suggestWeight;
+    private final boolean enabled;
+    private final int candidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Titles titles;
+    // Non-null while a build reads the catalog
+    private List<CatalogChangedEvent> changedDuringBuild;
+    private volatile boolean ready;
+
+    public TitleSuggestionIndex(CourseSearchEngine courseSearchEngine,
+                                CatalogSnapshotService catalogSnapshotService,
+                                @Value("${course-search.suggest.prefix-index.enabled:true}") boolean enabled,
+                                @Value("${course-search.suggest.weight:course-count}") SuggestWeight weight,
+                                @Value("${course-search.suggest.candidates:32}") int candidates) {
+        this.courseSearchEngine = courseSearchEngine;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.enabled = enabled;
+        this.suggestWeight = weight;
+        this.candidates = candidates;
+        this.titles = new Titles();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        build(true);
+    }
+
+    // After a reindex: the snapshot describes the previous index, so titles are read from the engine
+    public void rebuild() {
+        build(false);
+    }
+
+    // Filled off-lock and swapped in, so suggestions keep being answered from the current titles meanwhile. Changes
+    // published while the catalog is read are recorded and replayed onto the new titles before the swap.
+    private synchronized void build(boolean fromSnapshot) {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        record(new ArrayList<>());
+        Titles built = new Titles();
+        // A current snapshot saves scrolling the whole catalog out of the engine
+        try (Stream<CourseDocument> courses = (fromSnapshot ? catalogSnapshotService.current() : Optional.<CatalogSnapshot>empty())
+                .map(CatalogSnapshot::stream)
+                .orElseGet(courseSearchEngine::streamAll)) {
+            courses.forEach(built::add);
+            built.trie.refresh();
+        } catch (RuntimeException e) {
+            // Suggestions go to the engine until the next successful build
+            log.warn("Could not build title suggestion index: {}", e.getMessage(), e);
+            record(null);
+            lock.writeLock().lock();
+            try {
+                titles = new Titles();
+                ready = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        int count;
+        lock.writeLock().lock();
+        try {
+            for (CatalogChangedEvent event : changedDuringBuild) {
+                built = apply(built, event);
+            }
+            changedDuringBuild = null;
+            titles = built;
+            count = built.entriesByTitle.size();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Built title suggestion index with {} titles in {} ms",
+                count, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void record(List<CatalogChangedEvent> changes) {
+        lock.writeLock().lock();
+        try {
+            changedDuringBuild = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (changedDuringBuild != null) {
+                changedDuringBuild.add(event);
+            }
+            if (ready) {
+                titles = apply(titles, event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The titles after the change: the same instance, or a new one when the catalog was cleared
+    private Titles apply(Titles target, CatalogChangedEvent event) {
+        Titles result = event.isCleared() ? new Titles() : target;
+        event.getDeletedIds().forEach(result::remove);
+        event.getSaved().forEach(result::add);
+        return result;
+    }
+
+    public List<String> suggest(String query, int limit) {
+        List<String> tokens = TextAnalysis.tokenize(query);
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (!titles.trie.isDirty()) {
+                return lookup(tokens, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Recompute the nodes touched since the last lookup, once, then serve from the write lock
+        lock.writeLock().lock();
+        try {
+            titles.trie.refresh();
+            return lookup(tokens, limit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<String> lookup(List<String> tokens, int limit) {
+        TitleTrie trie = titles.trie;
+        List<String> terms = tokens.subList(0, tokens.size() - 1);
+        String prefix = tokens.get(tokens.size() - 1);
+
+        Set<TitleTrie.Entry> candidates = new LinkedHashSet<>(trie.withPrefix(prefix));
+        terms.forEach(term -> candidates.addAll(trie.withTerm(term)));
+
+        Map<TitleTrie.Entry, Integer> matched = new HashMap<>();
+        for (TitleTrie.Entry entry : candidates) {
+            int count = entry.hasTermWithPrefix(prefix) ? 1 : 0;
+            for (String term : terms) {
+                if (entry.hasTerm(term)) {
+                    count++;
+                }
+            }
+            matched.put(entry, count);
+        }
+
+        return candidates.stream()
+                .sorted(Comparator.comparing((TitleTrie.Entry entry) -> matched.get(entry))
+                        .reversed()
+                        .thenComparing(TitleTrie.BY_WEIGHT))
+                .limit(limit)
+                .map(entry -> entry.title)
+                .toList();
+    }
+
+    // One copy of the title index; guarded by the index's lock once it is swapped in
+    private final class Titles {
+        private final TitleTrie trie = new TitleTrie(candidates);
+        private final Map<String, TitleTrie.Entry> entriesByTitle = new HashMap<>();
+        private final Map<TitleTrie.Entry, Map<String, Instant>> coursesByEntry = new HashMap<>();
+        private final Map<String, TitleTrie.Entry> entriesByCourseId = new HashMap<>();
+
+        private void add(CourseDocument course) {
+            remove(course.getId());
+            if (course.getTitle() == null) {
+                return;
+            }
+            TitleTrie.Entry entry = entriesByTitle.get(course.getTitle());
+            boolean created = entry == null;
+            if (created) {
+                entry = new TitleTrie.Entry(course.getTitle(), TextAnalysis.tokenize(course.getTitle()).toArray(new String[0]));
+                entriesByTitle.put(entry.title, entry);
+                coursesByEntry.put(entry, new HashMap<>());
+            }
+            coursesByEntry.get(entry).put(course.getId(), course.getNextSessionDate());
+            entriesByCourseId.put(course.getId(), entry);
+
+            if (created) {
+                entry.weight = suggestWeight.weigh(coursesByEntry.get(entry).values());
+                trie.add(entry);
+            } else {
+                reweigh(entry);
+            }
+        }
+
+        private void remove(String courseId) {
+            TitleTrie.Entry entry = entriesByCourseId.remove(courseId);
+            if (entry == null) {
+                return;
+            }
+            Map<String, Instant> courses = coursesByEntry.get(entry);
+            courses.remove(courseId);
+            if (courses.isEmpty()) {
+                coursesByEntry.remove(entry);
+                entriesByTitle.remove(entry.title);
+                trie.remove(entry);
+            } else {
+                reweigh(entry);
+            }
+        }
+
+        private void reweigh(TitleTrie.Entry entry) {
+            long updated = suggestWeight.weigh(coursesByEntry.get(entry).values());
+            if (updated != entry.weight) {
+                entry.weight = updated;
+                trie.touch(entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.undoschool.coursesearch.suggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Character trie over analyzed title terms. Each node keeps the best titles of its subtree,
+ * so a prefix lookup costs the prefix length plus a fixed number of candidates. Mutations only
+ * mark the touched paths dirty; {@link #refresh()} recomputes those nodes before the next lookup.
+ * Not thread-safe, callers guard it.
+ */
+class TitleTrie {
+
+    static final Comparator<Entry> BY_WEIGHT = Comparator.comparingLong((Entry entry) -> entry.weight)
+            .reversed()
+            .thenComparing(entry -> entry.title);
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final int candidates;
+    private final Node root = new Node();
+
+    TitleTrie(int candidates) {
+        this.candidates = candidates;
+    }
+
+    /** A distinct title with its analyzed terms and current weight. */
+    static final class Entry {
+        final String title;
+        final String[] terms;
+        long weight;
+
+        Entry(String title, String[] terms) {
+            this.title = title;
+            this.terms = terms;
+        }
+
+        boolean hasTerm(String term) {
+            for (String candidate : terms) {
+                if (candidate.equals(term)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean hasTermWithPrefix(String prefix) {
+            for (String candidate : terms) {
+                if (candidate.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Node {
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        List<Entry> entries;
+        Entry[] best = NO_ENTRIES;
+        Entry[] bestExact = NO_ENTRIES;
+        boolean dirty;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = new Node();
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[insertAt];
+        }
+
+        void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && (entries == null || entries.isEmpty());
+        }
+    }
+
+    void add(Entry entry) {
+        for (String term : distinctTerms(entry)) {
+            Node node = root;
+            node.dirty = true;
+            for (int i = 0; i < term.length(); i++) {
+                node = node.addChild(term.charAt(i));
+                node.dirty = true;
+            }
+            if (node.entries == null) {
+                node.entries = new ArrayList<>(1);
+            }
+            node.entries.add(entry);
+        }
+    }
+
+    void remove(Entry entry) {
+        for (String term : distinctTerms(entry)) {
+            remove(root, term, 0, entry);
+        }
+    }
+
+    private void remove(Node node, String term, int depth, Entry entry) {
+        node.dirty = true;
+        if (depth == term.length()) {
+            if (node.entries != null) {
+                node.entries.remove(entry);
+            }
+            return;
+        }
+        Node child = node.child(term.charAt(depth));
+        if (child == null) {
+            return;
+        }
+        remove(child, term, depth + 1, entry);
+        if (child.isEmpty()) {
+            node.removeChild(term.charAt(depth));
+        }
+    }
+
+    // Weight changed: every node that may rank this entry has to be recomputed
+    void touch(Entry entry) {
+        for (String term : distinctTerms(entry)) {
+            Node node = root;
+            node.dirty = true;
+            for (int i = 0; i < term.length() && node != null; i++) {
+                node = node.child(term.charAt(i));
+                if (node != null) {
+                    node.dirty = true;
+                }
+            }
+        }
+    }
+
+    boolean isDirty() {
+        return root.dirty;
+    }
+
+    void refresh() {
+        refresh(root);
+    }
+
+    private void refresh(Node node) {
+        if (!node.dirty) {
+            return;
+        }
+        Set<Entry> merged = new LinkedHashSet<>();
+        if (node.entries != null && !node.entries.isEmpty()) {
+            node.bestExact = node.entries.stream()
+                    .sorted(BY_WEIGHT)
+                    .limit(candidates)
+                    .toArray(Entry[]::new);
+            merged.addAll(Arrays.asList(node.bestExact));
+        } else {
+            node.bestExact = NO_ENTRIES;
+        }
+        for (Node child : node.children) {
+            refresh(child);
+            merged.addAll(Arrays.asList(child.best));
+        }
+        node.best = merged.stream()
+                .sorted(BY_WEIGHT)
+                .limit(candidates)
+                .toArray(Entry[]::new);
+        node.dirty = false;
+    }
+
+    // Best titles having a term that starts with the prefix
+    List<Entry> withPrefix(String prefix) {
+        Node node = find(prefix);
+        return node == null ? List.of() : Arrays.asList(node.best);
+    }
+
+    // Best titles having exactly this term
+    List<Entry> withTerm(String term) {
+        Node node = find(term);
+        return node == null ? List.of() : Arrays.asList(node.bestExact);
+    }
+
+    private Node find(String term) {
+        Node node = root;
+        for (int i = 0; i < term.length() && node != null; i++) {
+            node = node.child(term.charAt(i));
+        }
+        return node;
+    }
+
+    private static Set<String> distinctTerms(Entry entry) {
+        return new LinkedHashSet<>(Arrays.asList(entry.terms));
+    }
+}
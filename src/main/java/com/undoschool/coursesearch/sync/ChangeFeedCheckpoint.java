@@ -0,0 +1,45 @@
+package com.undoschool.coursesearch.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Durable position in the change log. A new checkpoint is written to a temporary file, forced to disk and then
+ * atomically moved over the old one, so a crash leaves either the previous or the new position, never a torn file.
+ */
+class ChangeFeedCheckpoint {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    ChangeFeedCheckpoint(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    // Null until the first batch has been applied
+    ChangeFeedReader.Position load() throws IOException {
+        return Files.exists(path) ? objectMapper.readValue(path.toFile(), ChangeFeedReader.Position.class) : null;
+    }
+
+    void clear() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    void store(ChangeFeedReader.Position position) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = parent.resolve("." + path.getFileName() + ".tmp");
+        Files.write(temp, objectMapper.writeValueAsBytes(position));
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,150 @@
+package com.undoschool.coursesearch.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads {@link CourseChange}s from an NDJSON change log: a single file, or a directory whose files are read in name
+ * order (e.g. {@code changes-000001.ndjson}, {@code changes-000002.ndjson}). Only lines terminated by a newline are
+ * read, so a writer appending to the last file is never seen half-way; a file counts as finished once a later one exists,
+ * and then an unterminated tail is its last line.
+ */
+@Slf4j
+class ChangeFeedReader {
+
+    /** Where reading resumes: a file of the change log and the byte offset of the next unread line. */
+    record Position(String file, long offset) {
+    }
+
+    record Batch(List<CourseChange> changes, int malformed, Position next) {
+    }
+
+    private record Line(byte[] bytes, boolean terminated) {
+    }
+
+    private final Path source;
+    private final ObjectMapper objectMapper;
+
+    ChangeFeedReader(Path source, ObjectMapper objectMapper) {
+        this.source = source;
+        this.objectMapper = objectMapper;
+    }
+
+    // Up to maxChanges changes after the position; an empty batch means the log is caught up
+    Batch read(Position from, int maxChanges) throws IOException {
+        List<CourseChange> changes = new ArrayList<>();
+        int malformed = 0;
+        Position position = from;
+
+        List<Path> files = files();
+        int index = position == null ? 0 : indexOf(files, position.file());
+        if (position == null || index < 0) {
+            // Nothing read yet, or the checkpointed file was removed: continue with the first file after it
+            index = position == null ? 0 : firstAfter(files, position.file());
+            position = index < files.size() ? new Position(name(files.get(index)), 0) : position;
+        }
+
+        while (index < files.size() && changes.size() + malformed < maxChanges) {
+            Path file = files.get(index);
+            boolean finished = index + 1 < files.size();
+            long offset = position.offset();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                channel.position(offset);
+                InputStream in = new BufferedInputStream(Channels.newInputStream(channel), 1 << 16);
+                Line next;
+                while (changes.size() + malformed < maxChanges && (next = readLine(in, finished)) != null) {
+                    byte[] line = next.bytes();
+                    long lineStart = offset;
+                    offset += line.length + (next.terminated() ? 1 : 0);
+                    if (isBlank(line)) {
+                        continue;
+                    }
+                    try {
+                        changes.add(objectMapper.readValue(line, CourseChange.class));
+                    } catch (IOException e) {
+                        // A bad line is skipped rather than blocking the whole feed behind it
+                        malformed++;
+                        log.error("Skipping malformed change at {}:{}: {}", file, lineStart, e.getMessage());
+                    }
+                }
+            }
+            position = new Position(name(file), offset);
+            if (changes.size() + malformed >= maxChanges || index + 1 >= files.size() || offset < Files.size(file)) {
+                break;
+            }
+            index++;
+            position = new Position(name(files.get(index)), 0);
+        }
+        return new Batch(changes, malformed, position);
+    }
+
+    private List<Path> files() throws IOException {
+        if (!Files.isDirectory(source)) {
+            return Files.isRegularFile(source) ? List.of(source) : List.of();
+        }
+        try (Stream<Path> entries = Files.list(source)) {
+            return entries
+                    .filter(Files::isRegularFile)
+                    .filter(file -> !name(file).startsWith("."))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static int indexOf(List<Path> files, String name) {
+        for (int i = 0; i < files.size(); i++) {
+            if (name(files.get(i)).equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int firstAfter(List<Path> files, String name) {
+        int index = 0;
+        while (index < files.size() && name(files.get(index)).compareTo(name) <= 0) {
+            index++;
+        }
+        return index;
+    }
+
+    // A newline-terminated line without the newline, or null at end of input; an unterminated tail is only
+    // returned once the file is finished, otherwise it is left for the writer to complete
+    private static Line readLine(InputStream in, boolean finished) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                return new Line(line.toByteArray(), true);
+            }
+            line.write(b);
+        }
+        return finished && line.size() > 0 ? new Line(line.toByteArray(), false) : null;
+    }
+
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (!Character.isWhitespace(b)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String name(Path file) {
+        return file.getFileName().toString();
+    }
+}
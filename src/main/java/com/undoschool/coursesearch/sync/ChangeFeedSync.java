@@ -0,0 +1,236 @@
+package com.undoschool.coursesearch.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the index in step with a local change log instead of reloading the catalog. Every
+ * {@code course-search.sync.refresh-interval} the log is read from the last checkpoint in batches; each batch is
+ * collapsed per course id and written as one bulk index plus one bulk delete, without refreshing. Patches are merged
+ * onto the indexed document, so frequent price or session date changes only need the changed fields. One refresh at
+ * the end of the cycle makes the cycle's changes searchable, so they show up within about one interval.
+ * <p>
+ * The checkpoint advances only after a batch is written. After a crash the last batch is replayed, which is harmless
+ * because upserts, patches and deletes all set absolute values. The checkpoint only holds for the catalog the changes
+ * were written to: a catalog restored from a snapshot {@link #rewind rewinds} it to the snapshot's checkpoint, and one
+ * reloaded from its source to the start of the log.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "course-search.sync.enabled", havingValue = "true")
+public class ChangeFeedSync {
+
+    public record SyncReport(long indexed, long deleted, long skipped) {
+    }
+
+    private final CourseSearchEngine courseSearchEngine;
+    private final ObjectMapper objectMapper;
+    private final ChangeFeedReader reader;
+    private final ChangeFeedCheckpoint checkpoint;
+    private final int batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile boolean ready;
+
+    public ChangeFeedSync(CourseSearchEngine courseSearchEngine,
+                          ObjectMapper objectMapper,
+                          @Value("${course-search.sync.source}") Path source,
+                          @Value("${course-search.sync.checkpoint:${course-search.sync.source}.checkpoint}") Path checkpoint,
+                          @Value("${course-search.sync.batch-size:1000}") int batchSize) {
+        this.courseSearchEngine = courseSearchEngine;
+        this.objectMapper = objectMapper;
+        this.reader = new ChangeFeedReader(source, objectMapper);
+        this.checkpoint = new ChangeFeedCheckpoint(checkpoint, objectMapper);
+        this.batchSize = batchSize;
+    }
+
+    // The initial catalog load runs before the application is ready; syncing earlier would make it look non-empty
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ready = true;
+    }
+
+    @Scheduled(fixedDelayString = "${course-search.sync.refresh-interval:5s}")
+    public void scheduledSync() {
+        // Skip the cycle while paused; changes wait in the log
+        if (!ready || !lock.tryLock()) {
+            return;
+        }
+        try {
+            sync();
+        } catch (IOException | RuntimeException e) {
+            // Nothing past the checkpoint is lost; the next cycle retries from there
+            log.error("Change feed sync failed: {}", e.getMessage(), e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Holds syncing off while the action runs, e.g. while a reindex copies the catalog into a new index
+    public <T> T whilePaused(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The checkpoint as a string to keep with a copy of the catalog taken after this call; null before the first batch
+    public String checkpoint() throws IOException {
+        ChangeFeedReader.Position position = checkpoint.load();
+        return position != null ? objectMapper.writeValueAsString(position) : null;
+    }
+
+    // Moves back to a checkpoint from checkpoint(), or to the start of the log for null, so that the next cycles
+    // replay what a restored or reloaded catalog is missing
+    public void rewind(String position) throws IOException {
+        lock.lock();
+        try {
+            if (position == null) {
+                checkpoint.clear();
+            } else {
+                checkpoint.store(objectMapper.readValue(position, ChangeFeedReader.Position.class));
+            }
+            log.info("Change feed checkpoint rewound to {}", position != null ? position : "the start of the log");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SyncReport sync() throws IOException {
+        lock.lock();
+        try {
+            return syncFromCheckpoint();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SyncReport syncFromCheckpoint() throws IOException {
+        long started = System.nanoTime();
+        long indexed = 0;
+        long deleted = 0;
+        long skipped = 0;
+
+        ChangeFeedReader.Position position = checkpoint.load();
+        ChangeFeedReader.Batch batch;
+        while (!(batch = reader.read(position, batchSize)).changes().isEmpty() || batch.malformed() > 0) {
+            SyncReport applied = apply(batch.changes());
+            indexed += applied.indexed();
+            deleted += applied.deleted();
+            skipped += applied.skipped() + batch.malformed();
+
+            position = batch.next();
+            checkpoint.store(position);
+        }
+
+        if (indexed + deleted > 0) {
+            courseSearchEngine.refresh();
+            log.info("Synced {} changed and {} deleted courses ({} skipped) in {} ms, now at {}",
+                    indexed, deleted, skipped, (System.nanoTime() - started) / 1_000_000, position);
+        }
+        return new SyncReport(indexed, deleted, skipped);
+    }
+
+    // Collapses the batch to the final state of each course, then writes it in one bulk index and one bulk delete
+    private SyncReport apply(List<CourseChange> changes) {
+        Map<String, CourseDocument> upserts = new LinkedHashMap<>();
+        Set<String> deletes = new LinkedHashSet<>();
+        Map<String, List<CourseChange>> patches = new LinkedHashMap<>();
+        long skipped = 0;
+
+        for (CourseChange change : changes) {
+            String id = change.id();
+            if (change.op() == null || id == null || id.isBlank()) {
+                log.warn("Skipping change without op or id: {}", change);
+                skipped++;
+                continue;
+            }
+            switch (change.op()) {
+                case UPSERT -> {
+                    if (change.course() == null) {
+                        log.warn("Skipping upsert of {} without a course", id);
+                        skipped++;
+                        continue;
+                    }
+                    change.course().setId(id);
+                    upserts.put(id, change.course());
+                    deletes.remove(id);
+                    patches.remove(id);
+                }
+                case DELETE -> {
+                    upserts.remove(id);
+                    patches.remove(id);
+                    deletes.add(id);
+                }
+                case PATCH -> {
+                    if (upserts.containsKey(id)) {
+                        skipped += patch(upserts.get(id), change) ? 0 : 1;
+                    } else if (deletes.contains(id)) {
+                        log.warn("Skipping patch of deleted course {}", id);
+                        skipped++;
+                    } else {
+                        patches.computeIfAbsent(id, key -> new ArrayList<>()).add(change);
+                    }
+                }
+            }
+        }
+
+        // Patches of courses not upserted in this batch apply to a copy of the indexed document
+        if (!patches.isEmpty()) {
+            for (CourseDocument indexed : courseSearchEngine.findAllById(patches.keySet())) {
+                CourseDocument course = new CourseDocument();
+                BeanUtils.copyProperties(indexed, course);
+                for (CourseChange change : patches.remove(indexed.getId())) {
+                    skipped += patch(course, change) ? 0 : 1;
+                }
+                upserts.put(course.getId(), course);
+            }
+            patches.forEach((id, missing) -> log.warn("Skipping {} patches of unknown course {}", missing.size(), id));
+            skipped += patches.values().stream().mapToLong(List::size).sum();
+        }
+
+        if (!upserts.isEmpty()) {
+            upserts.values().forEach(course -> course.setTitleSuggest(course.getTitle()));
+            courseSearchEngine.bulkIndex(new ArrayList<>(upserts.values()));
+        }
+        if (!deletes.isEmpty()) {
+            courseSearchEngine.bulkDelete(deletes);
+        }
+        return new SyncReport(upserts.size(), deletes.size(), skipped);
+    }
+
+    private boolean patch(CourseDocument course, CourseChange change) {
+        if (change.fields() == null) {
+            return true;
+        }
+        try {
+            objectMapper.readerForUpdating(course).readValue(change.fields());
+            course.setId(change.id());
+            return true;
+        } catch (IOException e) {
+            log.warn("Skipping invalid patch of {}: {}", change.id(), e.getMessage());
+            return false;
+        }
+    }
+}
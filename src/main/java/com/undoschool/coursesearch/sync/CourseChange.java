@@ -0,0 +1,22 @@
+package com.undoschool.coursesearch.sync;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.undoschool.coursesearch.document.CourseDocument;
+
+/**
+ * One line of the change log, keyed by course id:
+ * <pre>
+ * {"op": "upsert", "id": "course-001", "course": {...whole document...}}
+ * {"op": "patch",  "id": "course-001", "fields": {"price": 129.0, "nextSessionDate": "2025-08-01T10:00:00Z"}}
+ * {"op": "delete", "id": "course-001"}
+ * </pre>
+ */
+public record CourseChange(Op op, String id, CourseDocument course, ObjectNode fields) {
+
+    public enum Op {
+        @JsonProperty("upsert") UPSERT,
+        @JsonProperty("patch") PATCH,
+        @JsonProperty("delete") DELETE
+    }
+}
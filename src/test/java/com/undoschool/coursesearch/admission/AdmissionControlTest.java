@@ -0,0 +1,78 @@
+package com.undoschool.coursesearch.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionControlTest {
+
+    private static final long TARGET = Duration.ofMillis(100).toNanos();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void limitBacksOffOncePerRoundTripAndGrowsBackUnderLoad() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 40, TARGET, 0.5);
+        long admitted = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+
+        // A burst of slow responses from one round halves the limit once, not once per response
+        for (int i = 0; i < 10; i++) {
+            limit.release(admitted, 2 * TARGET, false);
+        }
+        assertThat(limit.limit()).isEqualTo(10);
+
+        // Requests admitted after the decrease can lower it again; a drop counts however fast it was
+        assertThat(limit.tryAcquire()).isFalse();
+        limit.release(admitted, 0, false);
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.release(System.nanoTime(), 0, true);
+        assertThat(limit.limit()).isEqualTo(5);
+
+        // Fast responses while the limit is in use grow it by about one per limit's worth of responses
+        for (int i = 0; i < 20; i++) {
+            limit.release(System.nanoTime(), TARGET / 2, false);
+            limit.tryAcquire();
+        }
+        assertThat(limit.limit()).isEqualTo(8);
+    }
+
+    @Test
+    void rejectsOverTheLimitAndShedsSearchesWhileSuggestionsAreSaturated() {
+        AdmissionControl admission = new AdmissionControl(meterRegistry, true, 1, 0.9,
+                1, 8, Duration.ofMillis(50), 2, 8, Duration.ofMillis(300));
+
+        MockHttpServletRequest search = request("/api/search");
+        assertThat(admission.preHandle(search, new MockHttpServletResponse(), null)).isTrue();
+        MockHttpServletRequest suggest = request("/api/search/suggest");
+        assertThat(admission.preHandle(suggest, new MockHttpServletResponse(), null)).isTrue();
+
+        assertThatThrownBy(() -> admission.preHandle(request("/api/search/suggest"), new MockHttpServletResponse(), null))
+                .isInstanceOf(AdmissionRejectedException.class);
+        assertThatThrownBy(() -> admission.preHandle(request("/api/search"), new MockHttpServletResponse(), null))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .hasMessageContaining("while suggest is at its limit");
+        assertThat(meterRegistry.counter(AdmissionControl.REJECTED_COUNTER, "endpoint", "suggest").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter(AdmissionControl.REJECTED_COUNTER, "endpoint", "search").count()).isEqualTo(1);
+
+        admission.afterCompletion(suggest, new MockHttpServletResponse(), null, null);
+        assertThat(admission.preHandle(request("/api/search"), new MockHttpServletResponse(), null)).isTrue();
+        assertThat(meterRegistry.get("course.admission.in.flight").tag("endpoint", "search").gauge().value()).isEqualTo(2);
+
+        // Other endpoints are not limited
+        assertThat(admission.preHandle(request("/api/search/batch"), new MockHttpServletResponse(), null)).isTrue();
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+}
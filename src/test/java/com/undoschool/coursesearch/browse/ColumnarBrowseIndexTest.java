@@ -0,0 +1,176 @@
+package com.undoschool.coursesearch.browse;
+
+import com.undoschool.coursesearch.catalog.CatalogChangedEvent;
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.InMemoryCourseSearchEngine;
+import com.undoschool.coursesearch.snapshot.CatalogSnapshotService;
+import com.undoschool.coursesearch.sync.ChangeFeedSync;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarBrowseIndexTest {
+
+    private static final String[] CATEGORIES = {"Math", "Science", "Art", "Music"};
+
+    private CatalogGeneration catalogGeneration;
+    private InMemoryCourseSearchEngine engine;
+    private ColumnarBrowseIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalogGeneration = new CatalogGeneration(event -> {
+            if (index != null) {
+                index.onCatalogChanged((CatalogChangedEvent) event);
+            }
+        });
+        engine = new InMemoryCourseSearchEngine(catalogGeneration);
+        CatalogSnapshotService noSnapshot = new CatalogSnapshotService(engine,
+                new StaticListableBeanFactory().getBeanProvider(ChangeFeedSync.class), new DefaultResourceLoader(), false,
+                Path.of("catalog.snapshot"), "classpath:sample-courses.json", 1000);
+        index = new ColumnarBrowseIndex(engine, noSnapshot, new SimpleMeterRegistry(), true);
+    }
+
+    @Test
+    void answersFilterOnlyBrowsesLikeTheEngine() {
+        Random random = new Random(7);
+        List<CourseDocument> courses = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            courses.add(randomCourse(random, "c-" + i));
+        }
+        engine.saveAll(courses);
+        index.build();
+
+        for (int i = 0; i < 200; i++) {
+            CourseSearchRequest request = CourseSearchRequest.builder()
+                    .minAge(random.nextInt(4) == 0 ? 5 + random.nextInt(10) : null)
+                    .maxAge(random.nextInt(4) == 0 ? 5 + random.nextInt(10) : null)
+                    .category(random.nextInt(3) == 0 ? CATEGORIES[random.nextInt(CATEGORIES.length)] : null)
+                    .type(random.nextInt(3) == 0 ? CourseDocument.CourseType.values()[random.nextInt(3)] : null)
+                    .minPrice(random.nextInt(4) == 0 ? (double) random.nextInt(200) : null)
+                    .maxPrice(random.nextInt(4) == 0 ? (double) random.nextInt(400) : null)
+                    .startDate(random.nextInt(4) == 0 ? LocalDateTime.of(2025, 8, 1 + random.nextInt(28), 0, 0) : null)
+                    .sort(List.of("upcoming", "priceAsc", "priceDesc").get(random.nextInt(3)))
+                    .page(random.nextInt(3))
+                    .size(1 + random.nextInt(20))
+                    .build();
+
+            assertSameResults(request);
+        }
+    }
+
+    @Test
+    void followsSavesDeletesAndClears() {
+        engine.saveAll(List.of(
+                course("c-1", "Math", 100.0),
+                course("c-2", "Math", 50.0),
+                course("c-3", "Art", 75.0)));
+        index.build();
+        CourseSearchRequest math = CourseSearchRequest.builder().category("Math").sort("priceAsc").build();
+
+        assertThat(ids(index.search(math))).containsExactly("c-2", "c-1");
+
+        engine.saveAll(List.of(course("c-3", "Math", 10.0)));
+        engine.bulkDelete(List.of("c-2"));
+        assertThat(ids(index.search(math))).containsExactly("c-3", "c-1");
+        assertSameResults(math);
+
+        engine.deleteAll();
+        engine.saveAll(List.of(course("c-9", "Math", 20.0)));
+        assertThat(ids(index.search(math))).containsExactly("c-9");
+        assertThat(index.search(math).getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsEverySortInOrderThroughSavesDeletesAndCompaction() {
+        Random random = new Random(11);
+        List<CourseDocument> courses = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            courses.add(randomCourse(random, "c-" + i));
+        }
+        engine.saveAll(courses);
+        index.build();
+
+        // Enough resaves that removed rows outnumber the compaction threshold
+        for (int round = 0; round < 30; round++) {
+            List<CourseDocument> changed = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                changed.add(randomCourse(random, "c-" + random.nextInt(250)));
+            }
+            engine.saveAll(changed);
+            engine.bulkDelete(List.of("c-" + random.nextInt(250)));
+            for (String sort : List.of("upcoming", "priceAsc", "priceDesc")) {
+                assertSameResults(CourseSearchRequest.builder().sort(sort).size(100).build());
+            }
+        }
+    }
+
+    @Test
+    void keepsServingThroughARebuildAndReplacement() {
+        engine.saveAll(List.of(course("c-1", "Math", 100.0), course("c-2", "Art", 50.0)));
+        index.build();
+        CourseSearchRequest math = CourseSearchRequest.builder().category("Math").build();
+
+        index.rebuild();
+        catalogGeneration.replaced();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(ids(index.search(math))).containsExactly("c-1");
+        engine.saveAll(List.of(course("c-3", "Math", 10.0)));
+        assertThat(ids(index.search(math))).containsExactly("c-1", "c-3");
+    }
+
+    @Test
+    void leavesFullTextCursorAndFacetedSearchesToTheEngine() {
+        assertThat(ColumnarBrowseIndex.handles(CourseSearchRequest.builder().category("Math").build())).isTrue();
+        assertThat(ColumnarBrowseIndex.handles(CourseSearchRequest.builder().q(" ").build())).isTrue();
+        assertThat(ColumnarBrowseIndex.handles(CourseSearchRequest.builder().q("algebra").build())).isFalse();
+        assertThat(ColumnarBrowseIndex.handles(CourseSearchRequest.builder().cursor("").build())).isFalse();
+        assertThat(ColumnarBrowseIndex.handles(CourseSearchRequest.builder().facets("category").build())).isFalse();
+    }
+
+    private void assertSameResults(CourseSearchRequest request) {
+        CourseSearchResponse expected = engine.search(request);
+        CourseSearchResponse actual = index.search(request);
+        assertThat(actual.getTotal()).as("total for %s", request).isEqualTo(expected.getTotal());
+        assertThat(ids(actual)).as("page for %s", request).isEqualTo(ids(expected));
+    }
+
+    private static List<String> ids(CourseSearchResponse response) {
+        return response.getCourses().stream().map(CourseDocument::getId).toList();
+    }
+
+    private static CourseDocument randomCourse(Random random, String id) {
+        int minAge = 5 + random.nextInt(8);
+        return CourseDocument.builder()
+                .id(id)
+                .title("Course " + id)
+                .category(random.nextInt(10) == 0 ? null : CATEGORIES[random.nextInt(CATEGORIES.length)])
+                .type(random.nextInt(10) == 0 ? null : CourseDocument.CourseType.values()[random.nextInt(3)])
+                .minAge(random.nextInt(10) == 0 ? null : minAge)
+                .maxAge(random.nextInt(10) == 0 ? null : minAge + random.nextInt(6))
+                // Few distinct prices and dates, so ties have to come out in the same order
+                .price(random.nextInt(10) == 0 ? null : 25.0 * random.nextInt(16))
+                .nextSessionDate(random.nextInt(10) == 0 ? null
+                        : Instant.parse("2025-08-01T10:00:00Z").plusSeconds(86_400L * random.nextInt(30)))
+                .build();
+    }
+
+    private static CourseDocument course(String id, String category, double price) {
+        return CourseDocument.builder().id(id).category(category).price(price).build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.undoschool.coursesearch.diagnostics;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.InMemoryCourseSearchEngine;
+import com.undoschool.coursesearch.engine.SearchProfile;
+import com.undoschool.coursesearch.service.SearchRequestKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryLogTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ProfilingBackend backend = new ProfilingBackend();
+
+    @BeforeEach
+    void setUp() {
+        CourseDocument course = new CourseDocument();
+        course.setId("c-1");
+        course.setTitle("Robotics for Beginners");
+        backend.saveAll(List.of(course));
+    }
+
+    @Test
+    void keepsTheNewestSlowSearchesWithTheirQuery() {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(backend, meterRegistry, true, Duration.ofMillis(20), 2, 0);
+
+        search(slowQueryLog, "robotics", Duration.ZERO);
+        assertThat(slowQueryLog.entries()).isEmpty();
+
+        search(slowQueryLog, "  Robotics ", Duration.ofMillis(30));
+        search(slowQueryLog, "art", Duration.ofMillis(30));
+        search(slowQueryLog, "chess", Duration.ofMillis(30));
+
+        List<SlowQuery> entries = slowQueryLog.entries();
+        assertThat(entries).extracting(entry -> entry.getRequest().getQ()).containsExactly("chess", "art");
+        assertThat(entries.get(0).getQuery()).isEqualTo("{\"q\":\"chess\"}");
+        assertThat(entries).extracting(SlowQuery::getPreference).containsExactly("hedge-1", null);
+        assertThat(entries.get(0).getLatencyMillis()).isGreaterThanOrEqualTo(30);
+        assertThat(entries.get(0).getProfile()).isNull();
+        assertThat(meterRegistry.counter(SlowQueryLog.SLOW_COUNTER).count()).isEqualTo(3);
+
+        slowQueryLog.clear();
+        assertThat(slowQueryLog.entries()).isEmpty();
+    }
+
+    @Test
+    void profilesSampledSlowSearchesOffTheRequestThread() throws InterruptedException {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(backend, meterRegistry, true, Duration.ofMillis(20), 10, 1);
+
+        CourseSearchResponse response = search(slowQueryLog, "robotics", Duration.ofMillis(30));
+
+        // The response does not wait for the profiled run
+        assertThat(response.getTotal()).isEqualTo(1);
+        SlowQuery entry = slowQueryLog.entries().get(0);
+        for (int i = 0; i < 500 && entry.getProfile() == null; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(entry.getTotal()).isEqualTo(1);
+        assertThat(entry.getProfileTookMillis()).isEqualTo(7);
+        assertThat(entry.getProfile()).isEqualTo("{\"shards\":[]}");
+        assertThat(meterRegistry.counter(SlowQueryLog.PROFILED_COUNTER).count()).isEqualTo(1);
+    }
+
+    private CourseSearchResponse search(SlowQueryLog slowQueryLog, String q, Duration latency) {
+        CourseSearchRequest request = CourseSearchRequest.builder().q(q).build();
+        return slowQueryLog.time(SearchRequestKey.of(request), request, () -> {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return backend.search(request);
+        });
+    }
+
+    // In-memory engine standing in for one with a query language and a profiler
+    private static class ProfilingBackend extends InMemoryCourseSearchEngine {
+
+        ProfilingBackend() {
+            super(new CatalogGeneration(event -> { }));
+        }
+
+        @Override
+        public CourseSearchResponse search(CourseSearchRequest request) {
+            CourseSearchResponse response = super.search(request);
+            response.setPreference(request.getQ().equals("chess") ? "hedge-1" : null);
+            return response;
+        }
+
+        @Override
+        public String queryJson(CourseSearchRequest request, String preference) {
+            return "{\"q\":\"" + request.getQ().trim().toLowerCase() + "\"}";
+        }
+
+        @Override
+        public SearchProfile profile(CourseSearchRequest request, String preference) {
+            return new SearchProfile(7, "{\"shards\":[]}");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.undoschool.coursesearch.engine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InFlightLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final InFlightLimiter limiter = new InFlightLimiter(meterRegistry, 1, Duration.ofMillis(50));
+
+    @Test
+    void rejectsWhenEverySlotStaysBusy() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> limiter.call(() -> {
+            started.countDown();
+            await(release);
+            return "slow";
+        }));
+        started.await();
+
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThatThrownBy(() -> limiter.call(() -> "fast")).isInstanceOf(SearchBackendBusyException.class);
+        assertThat(meterRegistry.counter("course.search.backend.rejected").count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(slow.get()).isEqualTo("slow");
+        assertThat(limiter.inFlight()).isZero();
+        assertThat(limiter.call(() -> "fast")).isEqualTo("fast");
+    }
+
+    @Test
+    void releasesTheSlotWhenTheCallFails() {
+        assertThatThrownBy(() -> limiter.call(() -> {
+            throw new IllegalStateException("backend down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.undoschool.coursesearch.engine;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.dto.FacetBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryCourseSearchEngineTest {
+
+    private InMemoryCourseSearchEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+        engine.saveAll(List.of(
+                course("c-1", "Advanced Mathematics", "Math", CourseDocument.CourseType.COURSE, 9, 12, 150.0, "2025-08-15T10:00:00Z"),
+                course("c-2", "Basic Physics", "Science", CourseDocument.CourseType.COURSE, 12, 15, 200.0, "2025-08-20T14:00:00Z"),
+                course("c-3", "Art Workshop", "Art", CourseDocument.CourseType.ONE_TIME, 6, 9, 75.0, "2025-08-10T11:00:00Z"),
+                course("c-4", "Math Club", "Math", CourseDocument.CourseType.CLUB, 7, 10, null, null)
+        ));
+    }
+
+    @Test
+    void fuzzyMatchesTitleTerms() {
+        CourseSearchResponse response = engine.search(CourseSearchRequest.builder().q("mathematcs").build());
+
+        assertThat(response.getTotal()).isEqualTo(1);
+        assertThat(response.getCourses()).extracting(CourseDocument::getId).containsExactly("c-1");
+    }
+
+    @Test
+    void ageFilterMatchesOverlappingRanges() {
+        CourseSearchResponse response = engine.search(CourseSearchRequest.builder().minAge(10).maxAge(11).build());
+
+        assertThat(response.getCourses()).extracting(CourseDocument::getId).containsExactly("c-1", "c-4");
+    }
+
+    @Test
+    void sortsMissingValuesLastInBothDirections() {
+        CourseSearchResponse ascending = engine.search(CourseSearchRequest.builder().sort("priceAsc").build());
+        CourseSearchResponse descending = engine.search(CourseSearchRequest.builder().sort("priceDesc").build());
+
+        assertThat(ascending.getCourses()).extracting(CourseDocument::getId).containsExactly("c-3", "c-1", "c-2", "c-4");
+        assertThat(descending.getCourses()).extracting(CourseDocument::getId).containsExactly("c-2", "c-1", "c-3", "c-4");
+    }
+
+    @Test
+    void appliesFiltersAndPagination() {
+        CourseSearchResponse response = engine.search(CourseSearchRequest.builder()
+                .category("Math")
+                .startDate(LocalDateTime.parse("2025-08-01T00:00:00"))
+                .page(0)
+                .size(1)
+                .build());
+
+        assertThat(response.getTotal()).isEqualTo(1);
+        assertThat(response.getCourses()).extracting(CourseDocument::getId).containsExactly("c-1");
+
+        CourseSearchResponse secondPage = engine.search(CourseSearchRequest.builder().page(1).size(3).build());
+        assertThat(secondPage.getTotal()).isEqualTo(4);
+        assertThat(secondPage.getCourses()).extracting(CourseDocument::getId).containsExactly("c-4");
+    }
+
+    @Test
+    void walksAllPagesWithCursor() {
+        List<String> ids = new ArrayList<>();
+        int pages = 0;
+        String cursor = "";
+        while (cursor != null) {
+            pages++;
+            CourseSearchResponse response = engine.search(CourseSearchRequest.builder()
+                    .sort("priceAsc")
+                    .size(2)
+                    .cursor(cursor)
+                    .build());
+            assertThat(response.getTotal()).isEqualTo(4);
+            response.getCourses().forEach(course -> ids.add(course.getId()));
+            cursor = response.getNextCursor();
+        }
+
+        assertThat(ids).containsExactly("c-3", "c-1", "c-2", "c-4");
+        // The second page is exactly full and the last one: no cursor to an empty page
+        assertThat(pages).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThatThrownBy(() -> engine.search(CourseSearchRequest.builder().cursor("not-a-cursor").build()))
+                .isInstanceOf(InvalidSearchRequestException.class);
+    }
+
+    @Test
+    void rejectsPagesOutsideTheResultWindow() {
+        assertThatThrownBy(() -> engine.search(CourseSearchRequest.builder().page(-1).build()))
+                .isInstanceOf(InvalidSearchRequestException.class);
+        assertThatThrownBy(() -> engine.search(CourseSearchRequest.builder().size(0).build()))
+                .isInstanceOf(InvalidSearchRequestException.class);
+        assertThatThrownBy(() -> engine.search(CourseSearchRequest.builder().page(Integer.MAX_VALUE).size(2).build()))
+                .isInstanceOf(InvalidSearchRequestException.class);
+        assertThatThrownBy(() -> engine.search(CourseSearchRequest.builder().cursor("").size(0).build()))
+                .isInstanceOf(InvalidSearchRequestException.class);
+    }
+
+    @Test
+    void projectsRequestedFields() {
+        CourseSearchResponse response = engine.search(CourseSearchRequest.builder()
+                .q("math")
+                .fields("-description,-titleSuggest")
+                .build());
+
+        assertThat(response.getCourses()).isNotEmpty().allSatisfy(course -> {
+            assertThat(course.getTitle()).isNotNull();
+            assertThat(course.getDescription()).isNull();
+            assertThat(course.getTitleSuggest()).isNull();
+        });
+    }
+
+    @Test
+    void countsRequestedFacetsOverAllMatches() {
+        CourseSearchResponse response = engine.search(CourseSearchRequest.builder()
+                .facets("category,price,age,upcoming")
+                .size(1)
+                .build());
+
+        Map<String, List<FacetBucket>> facets = response.getFacets();
+        assertThat(facets).containsOnlyKeys("category", "price", "age", "upcoming");
+        assertThat(facets.get("category")).containsExactly(
+                new FacetBucket("Math", 2), new FacetBucket("Art", 1), new FacetBucket("Science", 1));
+        assertThat(facets.get("price")).containsExactly(
+                new FacetBucket("50", 1), new FacetBucket("150", 1), new FacetBucket("200", 1));
+        assertThat(facets.get("age")).extracting(FacetBucket::getCount).containsExactly(0L, 2L, 3L, 2L, 1L);
+        assertThat(facets.get("upcoming")).containsExactly(new FacetBucket("2025-08", 3));
+    }
+
+    @Test
+    void suggestsByWordPrefix() {
+        assertThat(engine.suggest("mat", 10)).containsExactly("Advanced Mathematics", "Math Club");
+        assertThat(engine.suggest("math cl", 10)).startsWith("Math Club");
+    }
+
+    @Test
+    void suggestsWithinCategoryAndType() {
+        assertThat(engine.suggest("a", "Math", null, 10)).containsExactly("Advanced Mathematics");
+        assertThat(engine.suggest("a", "Art", null, 10)).containsExactly("Art Workshop");
+        assertThat(engine.suggest("mat", "Math", CourseDocument.CourseType.CLUB, 10)).containsExactly("Math Club");
+        assertThat(engine.suggest("mat", "Science", null, 10)).isEmpty();
+    }
+
+    @Test
+    void keepsResultsAndTieOrderThroughCompaction() {
+        // Enough resaves that removed ordinals outnumber the compaction threshold
+        for (int round = 0; round < 600; round++) {
+            engine.saveAll(List.of(
+                    course("c-2", "Basic Physics", "Science", CourseDocument.CourseType.COURSE, 12, 15, 75.0, "2025-08-20T14:00:00Z"),
+                    course("c-5", "Pottery Basics", "Art", CourseDocument.CourseType.ONE_TIME, 6, 9, 75.0, "2025-08-10T11:00:00Z")));
+        }
+        engine.bulkDelete(List.of("c-1"));
+
+        assertThat(engine.count()).isEqualTo(4);
+        assertThat(engine.search(CourseSearchRequest.builder().sort("priceAsc").build()).getCourses())
+                .extracting(CourseDocument::getId)
+                .containsExactly("c-3", "c-2", "c-5", "c-4");
+        assertThat(engine.search(CourseSearchRequest.builder().q("pottery").build()).getCourses())
+                .extracting(CourseDocument::getId)
+                .containsExactly("c-5");
+        assertThat(engine.suggest("math", 10)).containsExactly("Math Club");
+    }
+
+    @Test
+    void replacesDocumentsWithTheSameId() {
+        engine.saveAll(List.of(course("c-3", "Pottery Workshop", "Art", CourseDocument.CourseType.ONE_TIME, 6, 9, 80.0, "2025-08-10T11:00:00Z")));
+
+        assertThat(engine.count()).isEqualTo(4);
+        assertThat(engine.search(CourseSearchRequest.builder().q("art").build()).getTotal()).isZero();
+        assertThat(engine.suggest("pot", 10)).containsExactly("Pottery Workshop");
+    }
+
+    private static CourseDocument course(String id, String title, String category, CourseDocument.CourseType type,
+                                         int minAge, int maxAge, Double price, String nextSessionDate) {
+        return CourseDocument.builder()
+                .id(id)
+                .title(title)
+                .description(title + " for curious learners")
+                .category(category)
+                .type(type)
+                .minAge(minAge)
+                .maxAge(maxAge)
+                .price(price)
+                .nextSessionDate(nextSessionDate != null ? Instant.parse(nextSessionDate) : null)
+                .titleSuggest(title)
+                .build();
+    }
+}
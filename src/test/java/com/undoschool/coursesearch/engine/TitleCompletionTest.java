@@ -0,0 +1,50 @@
+package com.undoschool.coursesearch.engine;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.suggest.SuggestWeight;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TitleCompletionTest {
+
+    @Test
+    void indexesEveryWordSuffixUnderEachFilterCombination() {
+        CourseDocument course = CourseDocument.builder()
+                .id("c-1")
+                .title("Intro to Robotics: LEGO")
+                .category("Science")
+                .type(CourseDocument.CourseType.CLUB)
+                .build();
+
+        Map<String, Object> completion = TitleCompletion.of(course, SuggestWeight.COURSE_COUNT);
+
+        assertThat(completion.get("input")).isEqualTo(List.of(
+                "Intro to Robotics: LEGO", "to Robotics: LEGO", "Robotics: LEGO", "LEGO"));
+        assertThat(completion.get("weight")).isEqualTo(1);
+        assertThat(completion.get("contexts")).isEqualTo(Map.of(TitleCompletion.CONTEXT,
+                List.of("*", "category:Science", "type:CLUB", "category:Science/type:CLUB")));
+        assertThat(TitleCompletion.context("Science", CourseDocument.CourseType.CLUB)).isEqualTo("category:Science/type:CLUB");
+        assertThat(TitleCompletion.context(null, null)).isEqualTo("*");
+
+        course.setTitle(" ");
+        assertThat(TitleCompletion.of(course, SuggestWeight.COURSE_COUNT)).isNull();
+    }
+
+    @Test
+    void upcomingWeightsRankSoonerSessionsHigher() {
+        CourseDocument sooner = CourseDocument.builder().title("A").nextSessionDate(Instant.parse("2025-08-10T11:00:00Z")).build();
+        CourseDocument later = CourseDocument.builder().title("B").nextSessionDate(Instant.parse("2025-09-10T11:00:00Z")).build();
+        CourseDocument undated = CourseDocument.builder().title("C").build();
+
+        assertThat(SuggestWeight.UPCOMING.completionWeight(sooner))
+                .isGreaterThan(SuggestWeight.UPCOMING.completionWeight(later))
+                .isGreaterThan(SuggestWeight.UPCOMING.completionWeight(undated));
+        assertThat(SuggestWeight.COURSE_COUNT.rank(List.of("Chess", "Math Club", "Math Club", "Art", "Chess", "Math Club"), 2))
+                .containsExactly("Math Club", "Chess");
+    }
+}
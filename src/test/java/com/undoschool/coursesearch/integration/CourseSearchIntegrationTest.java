@@ -1,46 +1,42 @@
 package com.undoschool.coursesearch.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.undoschool.coursesearch.document.CourseDocument;
 import com.undoschool.coursesearch.dto.CourseSearchResponse;
-import com.undoschool.coursesearch.repository.CourseRepository;
+import com.undoschool.coursesearch.engine.CourseSearchEngine;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
-import org.testcontainers.elasticsearch.ElasticsearchContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
-@AutoConfigureWebMvc
+@AutoConfigureMockMvc
 @ActiveProfiles("test")
-@Testcontainers
 public class CourseSearchIntegrationTest {
 
-    @Container
-    static ElasticsearchContainer elasticsearch = new ElasticsearchContainer("docker.elastic.co/elasticsearch/elasticsearch:8.11.0")
-            .withEnv("xpack.security.enabled", "false")
-            .withEnv("xpack.security.enrollment.enabled", "false");
-
     @Autowired
     private MockMvc mockMvc;
 
     @Autowired
-    private CourseRepository courseRepository;
+    private CourseSearchEngine courseSearchEngine;
 
     @Autowired
     private ObjectMapper objectMapper;
@@ -48,7 +44,7 @@ public class CourseSearchIntegrationTest {
     @BeforeEach
     void setUp() {
         // Clear existing data
-        courseRepository.deleteAll();
+        courseSearchEngine.deleteAll();
 
         // Create test data
         List<CourseDocument> testCourses = Arrays.asList(
@@ -93,14 +89,8 @@ public class CourseSearchIntegrationTest {
                         .build()
         );
 
-        courseRepository.saveAll(testCourses);
-
-        // Wait for indexing
-        try {
-            Thread.sleep(2000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        // Both engines make saved courses searchable before saveAll returns, no refresh wait needed
+        courseSearchEngine.saveAll(testCourses);
     }
 
     @Test
@@ -187,6 +177,109 @@ public class CourseSearchIntegrationTest {
         assertThat(response.getCourses()).hasSizeLessThanOrEqualTo(2);
     }
 
+    @Test
+    void testFieldProjection() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/search")
+                        .param("q", "math")
+                        .param("fields", "id,title,price")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode courses = objectMapper.readTree(result.getResponse().getContentAsString()).get("courses");
+
+        assertThat(courses).isNotEmpty();
+        courses.forEach(course -> assertThat(course.fieldNames()).toIterable()
+                .containsExactlyInAnyOrder("id", "title", "price"));
+    }
+
+    @Test
+    void testInvalidPagingIsRejected() throws Exception {
+        mockMvc.perform(get("/api/search").param("page", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/search").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/search").param("page", "5000").param("size", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testAdminEndpointsAreOffByDefault() throws Exception {
+        mockMvc.perform(get("/actuator/slowqueries"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/admin/slow-queries"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testUnknownFieldIsRejected() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .param("fields", "id,secret")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testFacetsCountEveryMatch() throws Exception {
+        mockMvc.perform(get("/api/search").param("facets", "type").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.courses.length()").value(1))
+                .andExpect(jsonPath("$.facets.type[0].key").value("COURSE"))
+                .andExpect(jsonPath("$.facets.type[0].count").value(2))
+                .andExpect(jsonPath("$.facets.type[1].key").value("ONE_TIME"))
+                .andExpect(jsonPath("$.facets.type[1].count").value(1));
+    }
+
+    @Test
+    void testExportStreamsEveryMatchAsNdjson() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/search/export")
+                        .param("sort", "priceAsc")
+                        .param("fields", "id,price"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+
+        // Test profile exports in batches of 2, so this walks two cursor pages
+        List<String> lines = result.getResponse().getContentAsString().lines().toList();
+        assertThat(lines).hasSize(3);
+        assertThat(lines.stream().map(this::readTree).map(node -> node.get("id").asText()))
+                .containsExactly("test-003", "test-001", "test-002");
+        assertThat(readTree(lines.get(0)).fieldNames()).toIterable().containsExactlyInAnyOrder("id", "price");
+    }
+
+    @Test
+    void testBatchSearchReportsErrorsPerItem() throws Exception {
+        String body = """
+                [
+                  {"category": "Math", "fields": "id,title"},
+                  {"fields": "id,secret"},
+                  {"q": "physics", "size": 1}
+                ]
+                """;
+
+        MvcResult result = mockMvc.perform(post("/api/search/batch")
+                        .content(body)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode items = objectMapper.readTree(result.getResponse().getContentAsString());
+
+        assertThat(items).hasSize(3);
+        assertThat(items.get(0).get("status").asInt()).isEqualTo(200);
+        items.get(0).get("response").get("courses").forEach(course ->
+                assertThat(course.fieldNames()).toIterable().containsExactlyInAnyOrder("id", "title"));
+        assertThat(items.get(1).get("status").asInt()).isEqualTo(400);
+        assertThat(items.get(1).get("message").asText()).contains("secret");
+        assertThat(items.get(2).get("status").asInt()).isEqualTo(200);
+        assertThat(items.get(2).get("response").get("courses")).hasSize(1);
+        assertThat(items.get(2).get("response").get("courses").get(0).has("description")).isTrue();
+    }
+
     @Test
     void testAutocompleteSuggestions() throws Exception {
         MvcResult result = mockMvc.perform(get("/api/search/suggest")
@@ -202,4 +295,43 @@ public class CourseSearchIntegrationTest {
         assertThat(suggestions).isNotEmpty();
         assertThat(suggestions).anyMatch(suggestion -> suggestion.toLowerCase().contains("math"));
     }
+
+    @Test
+    void testAutocompleteSuggestionsWithinCategory() throws Exception {
+        mockMvc.perform(get("/api/search/suggest").param("q", "a").param("category", "Art"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", contains("Art Workshop")));
+
+        mockMvc.perform(get("/api/search/suggest").param("q", "a").param("category", "Math").param("type", "ONE_TIME"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void testConditionalGetUntilTheCatalogChanges() throws Exception {
+        String eTag = mockMvc.perform(get("/api/search").param("category", "Math"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=30, public"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(eTag).isNotBlank();
+
+        mockMvc.perform(get("/api/search").param("category", "Math").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        courseSearchEngine.saveAll(List.of(CourseDocument.builder().id("test-004").title("Geometry").category("Math").build()));
+
+        mockMvc.perform(get("/api/search").param("category", "Math").header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(header().string("ETag", not(eTag)));
+    }
+
+    private JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,45 @@
+package com.undoschool.coursesearch.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "management.endpoint.slowqueries.access=unrestricted",
+        "management.endpoints.web.exposure.include=health,slowqueries",
+        "course-search.slow-query.threshold=0ms"
+})
+class SlowQueriesEndpointIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void listsAndClearsSlowQueriesOnceGranted() throws Exception {
+        mockMvc.perform(get("/api/search").param("q", "robotics"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/slowqueries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].request.q").value("robotics"))
+                .andExpect(jsonPath("$[0].latencyMillis").isNumber());
+
+        mockMvc.perform(delete("/actuator/slowqueries"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/actuator/slowqueries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.undoschool.coursesearch.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.coursesearch.config.AppConfig;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.CourseFieldProjection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CourseJsonCacheTest {
+
+    private final ObjectMapper reflective = new AppConfig().objectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CourseJsonCache cache = new CourseJsonCache(meterRegistry, true, 100);
+    private final ObjectMapper spliced = new AppConfig().objectMapper().registerModule(cache.module());
+
+    @Test
+    void writesTheSameJsonAsTheBeanSerializer() throws Exception {
+        CourseSearchResponse response = CourseSearchResponse.builder()
+                .total(2)
+                .courses(List.of(course("c-1", 120.0), CourseDocument.builder().id("c-2").title("Sparse \"quoted\" ü").build()))
+                .build();
+
+        String expected = reflective.writeValueAsString(response);
+        assertThat(spliced.writeValueAsString(response)).isEqualTo(expected);
+        // Second time from the cached fragments
+        assertThat(spliced.writeValueAsString(response)).isEqualTo(expected);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void neverServesAFragmentOfAnOlderVersion() throws Exception {
+        spliced.writeValueAsString(course("c-1", 120.0));
+
+        CourseDocument updated = course("c-1", 99.0);
+        assertThat(spliced.writeValueAsString(updated)).isEqualTo(reflective.writeValueAsString(updated));
+    }
+
+    @Test
+    void leavesProjectedDocumentsToTheBeanSerializer() throws Exception {
+        CourseDocument course = course("c-1", 120.0);
+        spliced.writeValueAsString(course);
+        CourseFieldProjection projection = CourseFieldProjection.parse("id,price");
+
+        assertThat(spliced.writer(projection.filters()).writeValueAsString(course))
+                .isEqualTo("{\"id\":\"c-1\",\"price\":120.0}");
+    }
+
+    private static CourseDocument course(String id, double price) {
+        return CourseDocument.builder()
+                .id(id)
+                .title("Algebra Basics")
+                .description("Equations, step by step")
+                .category("Math")
+                .type(CourseDocument.CourseType.COURSE)
+                .minAge(11)
+                .maxAge(14)
+                .price(price)
+                .nextSessionDate(Instant.parse("2025-07-20T10:00:00Z"))
+                .titleSuggest("Algebra Basics")
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.undoschool.coursesearch.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.elasticsearch.client.Node;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ElasticsearchPoolMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void reportsPoolLimitsInTotalAndPerNodeAndCountsNodeFailures() throws Exception {
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor());
+        connectionManager.setDefaultMaxPerRoute(16);
+        connectionManager.setMaxTotal(40);
+        HttpHost node = new HttpHost("es-1", 9200, "http");
+        ElasticsearchPoolMetrics poolMetrics = new ElasticsearchPoolMetrics(connectionManager, List.of(node, new HttpHost("es-2", 9200, "http")));
+
+        poolMetrics.nodeFailed(new Node(node));
+        poolMetrics.bindTo(meterRegistry);
+        poolMetrics.nodeFailed(new Node(node));
+
+        assertThat(gauge("max", "all")).isEqualTo(40);
+        assertThat(gauge("max", "es-1:9200")).isEqualTo(16);
+        assertThat(gauge("leased", "es-2:9200")).isZero();
+        assertThat(gauge("pending", "all")).isZero();
+        assertThat(meterRegistry.get(ElasticsearchPoolMetrics.NODE_FAILURES).tag("node", "es-1:9200").counter().count()).isEqualTo(1);
+        connectionManager.shutdown();
+    }
+
+    private double gauge(String name, String node) {
+        return meterRegistry.get(ElasticsearchPoolMetrics.POOL_GAUGE + "." + name).tag("node", node).gauge().value();
+    }
+}
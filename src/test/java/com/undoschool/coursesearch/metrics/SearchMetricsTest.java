@@ -0,0 +1,54 @@
+package com.undoschool.coursesearch.metrics;
+
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SearchMetrics searchMetrics = new SearchMetrics(meterRegistry);
+
+    @Test
+    void tagsByEndpointSortAndPresentFilters() {
+        Tags tags = searchMetrics.tags(CourseSearchRequest.builder()
+                .q("math")
+                .maxAge(10)
+                .type(CourseDocument.CourseType.CLUB)
+                .category(" ")
+                .sort("PRICEDESC")
+                .endpoint(SearchMetrics.EXPORT)
+                .build());
+
+        assertThat(tags).containsExactlyInAnyOrder(
+                Tag.of("endpoint", "export"), Tag.of("sort", "pricedesc"), Tag.of("filters", "q,age,type"));
+        assertThat(searchMetrics.tags(CourseSearchRequest.builder().sort("bogus").build())).containsExactlyInAnyOrder(
+                Tag.of("endpoint", "search"), Tag.of("sort", "upcoming"), Tag.of("filters", "none"));
+    }
+
+    @Test
+    void recordsStagesAndTookSideBySide() {
+        Tags tags = searchMetrics.tags(SearchMetrics.SUGGEST);
+
+        String result = searchMetrics.time(SearchMetrics.BUILD, tags, () -> "query");
+        searchMetrics.record(SearchMetrics.BACKEND, tags, Duration.ofMillis(12).toNanos());
+        searchMetrics.recordTook(tags, Duration.ofMillis(7));
+
+        assertThat(result).isEqualTo("query");
+        assertThat(meterRegistry.get(SearchMetrics.STAGE_TIMER).tags(tags).tag("stage", "build").timer().count())
+                .isEqualTo(1);
+        Timer backend = meterRegistry.get(SearchMetrics.STAGE_TIMER).tags(tags).tag("stage", "backend").timer();
+        Timer took = meterRegistry.get(SearchMetrics.TOOK_TIMER).tags(tags).timer();
+        assertThat(backend.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(12);
+        assertThat(took.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(7);
+    }
+}
@@ -0,0 +1,108 @@
+package com.undoschool.coursesearch.resilience;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.InMemoryCourseSearchEngine;
+import com.undoschool.coursesearch.engine.InvalidSearchRequestException;
+import com.undoschool.coursesearch.service.SearchRequestKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCircuitBreakerTest {
+
+    private static final SearchRequestKey ROBOTICS = SearchRequestKey.of(CourseSearchRequest.builder().q("robotics").build());
+    private static final SearchRequestKey POTTERY = SearchRequestKey.of(CourseSearchRequest.builder().q("pottery").build());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SearchCircuitBreaker breaker = new SearchCircuitBreaker(meterRegistry, true, 50, 4, 4, Duration.ofMillis(200), 100);
+    private final CourseSearchResponse response = CourseSearchResponse.builder().total(3L).build();
+
+    @Test
+    void opensAtTheFailureRateAndServesTheLastGoodResponse() {
+        breaker.call(ROBOTICS, () -> response);
+        breaker.call(POTTERY, () -> response);
+        fail();
+        assertThat(breaker.state()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+        fail();
+        assertThat(breaker.state()).isEqualTo(SearchCircuitBreaker.State.OPEN);
+
+        CircuitOpenException open = catchOpen(() -> breaker.call(ROBOTICS, () -> response));
+        assertThat(open.getRetryAfterSeconds()).isEqualTo(1);
+        CourseSearchResponse fallback = breaker.fallback(ROBOTICS, open);
+        assertThat(fallback.getTotal()).isEqualTo(3);
+        assertThat(fallback.isStale()).isTrue();
+        assertThat(response.isStale()).isFalse();
+        SearchRequestKey unseen = SearchRequestKey.of(CourseSearchRequest.builder().q("chess").build());
+        assertThatThrownBy(() -> breaker.fallback(unseen, open)).isSameAs(open);
+
+        assertThat(meterRegistry.counter(SearchCircuitBreaker.REJECTED_COUNTER, "outcome", "fallback").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter(SearchCircuitBreaker.REJECTED_COUNTER, "outcome", "failed").count()).isEqualTo(1);
+    }
+
+    @Test
+    void letsOneProbeThroughAfterTheOpenDuration() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            fail();
+        }
+        assertThat(breaker.state()).isEqualTo(SearchCircuitBreaker.State.OPEN);
+        Thread.sleep(250);
+
+        // A failed probe opens the circuit again
+        fail();
+        assertThat(breaker.state()).isEqualTo(SearchCircuitBreaker.State.OPEN);
+        catchOpen(() -> breaker.call(ROBOTICS, () -> response));
+        Thread.sleep(250);
+
+        assertThat(breaker.call(ROBOTICS, () -> response)).isSameAs(response);
+        assertThat(breaker.state()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void invalidRequestsDoNotCountAsFailures() {
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> breaker.call(ROBOTICS, () -> {
+                throw new InvalidSearchRequestException("Unknown facet: level");
+            })).isInstanceOf(InvalidSearchRequestException.class);
+        }
+        assertThat(breaker.state()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void malformedPagingAndLocalBugsDoNotCountAsFailures() {
+        InMemoryCourseSearchEngine engine = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+        CourseSearchRequest negativePage = CourseSearchRequest.builder().page(-1).build();
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> breaker.call(null, () -> engine.search(negativePage)))
+                    .isInstanceOf(InvalidSearchRequestException.class);
+            assertThatThrownBy(() -> breaker.call(ROBOTICS, () -> {
+                PageRequest.of(0, 0);
+                return response;
+            })).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(breaker.state()).isEqualTo(SearchCircuitBreaker.State.CLOSED);
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> breaker.call(ROBOTICS, () -> {
+            throw new UncheckedIOException(new ConnectException("backend down"));
+        })).isInstanceOf(UncheckedIOException.class);
+    }
+
+    private static CircuitOpenException catchOpen(Runnable call) {
+        try {
+            call.run();
+        } catch (CircuitOpenException e) {
+            return e;
+        }
+        throw new AssertionError("Expected the circuit to be open");
+    }
+}
@@ -0,0 +1,105 @@
+package com.undoschool.coursesearch.resilience;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.InMemoryCourseSearchEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchHedgerTest {
+
+    private static final CourseSearchRequest REQUEST = CourseSearchRequest.builder().q("robotics").build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SlowBackend backend = new SlowBackend();
+    private final SearchHedger hedger = new SearchHedger(meterRegistry, true, 95, Duration.ofMillis(20), 20);
+
+    @BeforeEach
+    void setUp() {
+        CourseDocument course = new CourseDocument();
+        course.setId("c-1");
+        course.setTitle("Robotics for Beginners");
+        backend.saveAll(List.of(course));
+    }
+
+    @Test
+    void hedgesAStuckSearchAndReturnsTheFirstAnswer() {
+        // Too few samples yet: a slow search is waited out, not hedged
+        backend.primaryLatency = Duration.ofMillis(100);
+        assertThat(search().getTotal()).isEqualTo(1);
+        assertThat(meterRegistry.counter(SearchHedger.HEDGED_COUNTER).count()).isZero();
+
+        backend.primaryLatency = Duration.ZERO;
+        for (int i = 0; i < 20; i++) {
+            search();
+        }
+        assertThat(hedger.delayNanos()).isGreaterThanOrEqualTo(Duration.ofMillis(20).toNanos());
+
+        backend.primaryLatency = Duration.ofSeconds(5);
+        backend.preferences.clear();
+        long started = System.nanoTime();
+        CourseSearchResponse response = search();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(response.getCourses()).extracting(CourseDocument::getId).containsExactly("c-1");
+        assertThat(backend.preferences).hasSize(2).first().isEqualTo("primary");
+        assertThat(backend.preferences.get(1)).startsWith("hedge-");
+        assertThat(meterRegistry.counter(SearchHedger.HEDGED_COUNTER).count()).isEqualTo(1);
+        assertThat(meterRegistry.counter(SearchHedger.HEDGE_WINS_COUNTER).count()).isEqualTo(1);
+    }
+
+    @Test
+    void failsOnlyWhenBothRequestsFail() {
+        for (int i = 0; i < 20; i++) {
+            search();
+        }
+        backend.primaryLatency = Duration.ofMillis(200);
+        backend.failure = new IllegalStateException("node down");
+
+        assertThatThrownBy(this::search).isSameAs(backend.failure);
+        assertThat(meterRegistry.counter(SearchHedger.HEDGED_COUNTER).count()).isEqualTo(1);
+        assertThat(meterRegistry.counter(SearchHedger.HEDGE_WINS_COUNTER).count()).isZero();
+    }
+
+    private CourseSearchResponse search() {
+        return hedger.call(preference -> backend.search(REQUEST, preference));
+    }
+
+    // Local stand-in for a cluster with one stuck shard copy: only requests without a preference are slow
+    private static class SlowBackend extends InMemoryCourseSearchEngine {
+
+        private final List<String> preferences = new CopyOnWriteArrayList<>();
+        private volatile Duration primaryLatency = Duration.ZERO;
+        private volatile RuntimeException failure;
+
+        SlowBackend() {
+            super(new CatalogGeneration(event -> { }));
+        }
+
+        @Override
+        public CourseSearchResponse search(CourseSearchRequest request, String preference) {
+            preferences.add(preference == null ? "primary" : preference);
+            if (preference == null && !primaryLatency.isZero()) {
+                try {
+                    Thread.sleep(primaryLatency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return search(request);
+        }
+    }
+}
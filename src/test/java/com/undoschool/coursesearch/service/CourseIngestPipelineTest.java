@@ -0,0 +1,97 @@
+package com.undoschool.coursesearch.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.config.AppConfig;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.engine.InMemoryCourseSearchEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.BulkFailureException;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CourseIngestPipelineTest {
+
+    private final ObjectMapper objectMapper = new AppConfig().objectMapper();
+
+    @Test
+    void ingestsJsonArraysInBatches() throws Exception {
+        InMemoryCourseSearchEngine engine = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+        CourseIngestPipeline pipeline = new CourseIngestPipeline(engine, objectMapper, 2, 2, 0, Duration.ZERO);
+
+        CourseIngestPipeline.IngestReport report = pipeline.ingest(input("""
+                [
+                  {"id": "c-1", "title": "Algebra Basics", "category": "Math", "nextSessionDate": "2025-07-20T10:00:00Z"},
+                  {"id": "c-2", "title": "Chemistry Lab", "category": "Science"},
+                  {"id": "c-3", "title": "Soccer Skills", "category": "Sports"}
+                ]
+                """));
+
+        assertThat(report.indexed()).isEqualTo(3);
+        assertThat(report.batches()).isEqualTo(2);
+        assertThat(engine.count()).isEqualTo(3);
+        assertThat(engine.search(CourseSearchRequest.builder().q("algebra").build()).getCourses())
+                .extracting(CourseDocument::getTitleSuggest)
+                .containsExactly("Algebra Basics");
+    }
+
+    @Test
+    void ingestsNdjson() throws Exception {
+        InMemoryCourseSearchEngine engine = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+        CourseIngestPipeline pipeline = new CourseIngestPipeline(engine, objectMapper, 10, 1, 0, Duration.ZERO);
+
+        CourseIngestPipeline.IngestReport report = pipeline.ingest(input("""
+                {"id": "c-1", "title": "Algebra Basics"}
+                {"id": "c-2", "title": "Chemistry Lab"}
+                """));
+
+        assertThat(report.indexed()).isEqualTo(2);
+        assertThat(engine.count()).isEqualTo(2);
+    }
+
+    @Test
+    void retriesOnlyRejectedCourses() throws Exception {
+        Map<String, Integer> attempts = new ConcurrentHashMap<>();
+        InMemoryCourseSearchEngine engine = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { })) {
+            @Override
+            public void bulkIndex(List<CourseDocument> courses) {
+                courses.forEach(course -> attempts.merge(course.getId(), 1, Integer::sum));
+                // c-2 is rejected on its first attempt, c-3 always
+                Set<String> rejected = courses.stream()
+                        .map(CourseDocument::getId)
+                        .filter(id -> id.equals("c-3") || (id.equals("c-2") && attempts.get(id) == 1))
+                        .collect(Collectors.toSet());
+                saveAll(courses.stream().filter(course -> !rejected.contains(course.getId())).toList());
+                if (!rejected.isEmpty()) {
+                    throw new BulkFailureException("rejected", rejected.stream().collect(Collectors.toMap(
+                            id -> id, id -> new BulkFailureException.FailureDetails(429, "too many requests"))));
+                }
+            }
+        };
+        CourseIngestPipeline pipeline = new CourseIngestPipeline(engine, objectMapper, 10, 1, 2, Duration.ZERO);
+
+        CourseIngestPipeline.IngestReport report = pipeline.ingest(input("""
+                {"id": "c-1", "title": "Algebra Basics"}
+                {"id": "c-2", "title": "Chemistry Lab"}
+                {"id": "c-3", "title": "Soccer Skills"}
+                """));
+
+        assertThat(report.indexed()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(attempts).containsEntry("c-1", 1).containsEntry("c-2", 2).containsEntry("c-3", 3);
+    }
+
+    private static ByteArrayInputStream input(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,112 @@
+package com.undoschool.coursesearch.service;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import com.undoschool.coursesearch.engine.SearchBackendBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCoalescerTest {
+
+    private static final SearchRequestKey KEY = SearchRequestKey.of(CourseSearchRequest.builder().q("robotics").build());
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CatalogGeneration catalogGeneration = new CatalogGeneration(event -> { });
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void concurrentIdenticalSearchesShareOneCall() throws Exception {
+        SearchCoalescer coalescer = coalescer(Duration.ofSeconds(5));
+        CourseSearchResponse response = CourseSearchResponse.builder().total(1L).build();
+
+        CompletableFuture<CourseSearchResponse> leader = CompletableFuture.supplyAsync(() -> coalescer.search(KEY, blocking(() -> response)));
+        awaitCalls(1);
+        CompletableFuture<CourseSearchResponse> follower = CompletableFuture.supplyAsync(() -> coalescer.search(KEY, blocking(() -> response)));
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertThat(leader.get()).isSameAs(response);
+        assertThat(follower.get()).isSameAs(response);
+        assertThat(calls).hasValue(1);
+
+        // Nothing outlives the flight
+        coalescer.search(KEY, () -> {
+            calls.incrementAndGet();
+            return response;
+        });
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void everyWaiterGetsTheLeadersException() throws Exception {
+        SearchCoalescer coalescer = coalescer(Duration.ofSeconds(5));
+        IllegalStateException failure = new IllegalStateException("backend down");
+
+        CompletableFuture<List<String>> leader = CompletableFuture.supplyAsync(() -> coalescer.suggest("Rob", blocking(() -> {
+            throw failure;
+        })));
+        awaitCalls(1);
+        CompletableFuture<List<String>> follower = CompletableFuture.supplyAsync(() -> coalescer.suggest(" rob ", blocking(List::of)));
+        awaitCoalesced(1);
+        release.countDown();
+
+        assertThatThrownBy(leader::get).isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThatThrownBy(follower::get).isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void waitersGiveUpAfterMaxWait() throws Exception {
+        SearchCoalescer coalescer = coalescer(Duration.ofMillis(50));
+        CompletableFuture<CourseSearchResponse> leader = CompletableFuture.supplyAsync(() -> coalescer.search(KEY, blocking(() -> null)));
+        awaitCalls(1);
+
+        assertThatThrownBy(() -> coalescer.search(KEY, () -> null)).isInstanceOf(SearchBackendBusyException.class);
+
+        release.countDown();
+        leader.get();
+    }
+
+    private SearchCoalescer coalescer(Duration maxWait) {
+        return new SearchCoalescer(catalogGeneration, meterRegistry, true, maxWait);
+    }
+
+    private <T> Supplier<T> blocking(Supplier<T> result) {
+        return () -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result.get();
+        };
+    }
+
+    private void awaitCalls(int expected) throws InterruptedException {
+        while (calls.get() < expected) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitCoalesced(double expected) throws InterruptedException {
+        while (meterRegistry.find(SearchCoalescer.COALESCED_COUNTER).counters().stream()
+                .mapToDouble(Counter::count).sum() < expected) {
+            Thread.sleep(5);
+        }
+    }
+}
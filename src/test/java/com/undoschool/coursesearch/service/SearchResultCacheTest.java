@@ -0,0 +1,82 @@
+package com.undoschool.coursesearch.service;
+
+import com.undoschool.coursesearch.catalog.CatalogChangedEvent;
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.dto.CourseSearchRequest;
+import com.undoschool.coursesearch.dto.CourseSearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchResultCacheTest {
+
+    private final List<Object> events = new ArrayList<>();
+    private final AtomicInteger searches = new AtomicInteger();
+    private CatalogGeneration catalogGeneration;
+    private SimpleMeterRegistry meterRegistry;
+    private SearchResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        catalogGeneration = new CatalogGeneration(events::add);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new SearchResultCache(catalogGeneration, meterRegistry, true, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void equivalentRequestsShareAnEntry() {
+        search(CourseSearchRequest.builder().q("  Math   Club ").sort("PRICEASC").build());
+        search(CourseSearchRequest.builder().q("math club").sort("priceAsc").page(0).size(10).build());
+
+        assertThat(searches).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void differentSortsPagesOrCategoriesAreDistinct() {
+        search(CourseSearchRequest.builder().category("Math").build());
+        search(CourseSearchRequest.builder().category("Math").sort("priceDesc").build());
+        search(CourseSearchRequest.builder().category("Math").page(1).build());
+        // Matched exactly by the engines, so a padded category is another search
+        search(CourseSearchRequest.builder().category("Math ").build());
+
+        assertThat(searches).hasValue(4);
+    }
+
+    @Test
+    void catalogChangesInvalidateEntries() {
+        CourseSearchRequest request = CourseSearchRequest.builder().category("Math").build();
+        search(request);
+
+        catalogGeneration.cleared();
+        cache.onCatalogChanged((CatalogChangedEvent) events.get(0));
+        search(request);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    @Test
+    void staleEntriesAreNotServedBeforeTheEventArrives() {
+        CourseSearchRequest request = CourseSearchRequest.builder().category("Math").build();
+        search(request);
+
+        catalogGeneration.cleared();
+        search(request);
+
+        assertThat(searches).hasValue(2);
+    }
+
+    private void search(CourseSearchRequest request) {
+        cache.get(SearchRequestKey.of(request), () -> {
+            searches.incrementAndGet();
+            return CourseSearchResponse.builder().total(0).courses(List.of()).build();
+        });
+    }
+}
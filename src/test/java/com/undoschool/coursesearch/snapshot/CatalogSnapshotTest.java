@@ -0,0 +1,180 @@
+package com.undoschool.coursesearch.snapshot;
+
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.config.AppConfig;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.InMemoryCourseSearchEngine;
+import com.undoschool.coursesearch.sync.ChangeFeedSync;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void roundTripsEveryColumnIncludingMissingValues() throws IOException {
+        CourseDocument full = CourseDocument.builder()
+                .id("c-1")
+                .title("Ärger mit Zahlen: Algebra")
+                .description("Equations, step by step")
+                .category("Math")
+                .type(CourseDocument.CourseType.COURSE)
+                .gradeRange("6th-8th")
+                .minAge(11)
+                .maxAge(14)
+                .price(129.5)
+                .nextSessionDate(Instant.parse("2025-07-20T10:00:00Z"))
+                .titleSuggest("Ärger mit Zahlen: Algebra")
+                .build();
+        CourseDocument sparse = CourseDocument.builder().id("c-2").category("Math").build();
+        CourseDocument other = CourseDocument.builder().id("c-3").title("").titleSuggest("").category("Art").type(CourseDocument.CourseType.CLUB).build();
+        Path path = dir.resolve("catalog.snapshot");
+
+        CatalogSnapshot.Origin origin = new CatalogSnapshot.Origin("file:/data/catalog.json 1 42", null,
+                "{\"file\":\"changes-0001.ndjson\",\"offset\":56}");
+        assertThat(CatalogSnapshotWriter.write(path, origin, Stream.of(full, sparse, other))).isEqualTo(3);
+        CatalogSnapshot snapshot = CatalogSnapshot.open(path);
+
+        assertThat(snapshot.size()).isEqualTo(3);
+        assertThat(snapshot.origin()).isEqualTo(origin);
+        assertThat(snapshot.stream()).containsExactly(full, sparse, other);
+        assertThat(snapshot.categories()).containsExactly("Math", "Art");
+        assertThat(snapshot.categoryCode(1)).isEqualTo(0);
+        assertThat(snapshot.minAge(1)).isEqualTo(CatalogSnapshot.NULL_INT);
+        assertThat(snapshot.price(1)).isNaN();
+        assertThat(snapshot.title(1)).isNull();
+        assertThat(snapshot.title(2)).isEmpty();
+        assertThat(dir).isDirectoryNotContaining(file -> !file.equals(path));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotSnapshots() throws IOException {
+        Path path = Files.writeString(dir.resolve("catalog.snapshot"), "[{\"id\":\"c-1\"}]");
+
+        assertThatThrownBy(() -> CatalogSnapshot.open(path)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void restoresAnEmptyEngineFromTheLastWrittenSnapshot() throws IOException {
+        writeSnapshotOfThreeCourses();
+
+        InMemoryCourseSearchEngine restarted = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+        CatalogSnapshotService reader = service(restarted);
+        reader.open();
+        assertThat(reader.current()).isEmpty();
+        assertThat(reader.restore()).isTrue();
+
+        assertThat(restarted.count()).isEqualTo(3);
+        assertThat(restarted.suggest("math", 10)).containsExactly("Math Circle");
+        assertThat(reader.current()).hasValueSatisfying(snapshot -> assertThat(snapshot.size()).isEqualTo(3));
+    }
+
+    @Test
+    void rewindsChangeFeedSyncToTheCheckpointOfTheRestoredSnapshot() throws IOException {
+        InMemoryCourseSearchEngine engine = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+        engine.saveAll(List.of(CourseDocument.builder().id("c-1").title("Algebra Basics").price(100.0).build()));
+        Files.writeString(dir.resolve("catalog.json"), "[]");
+        Path changes = Files.createDirectories(dir.resolve("changes"));
+        Files.writeString(changes.resolve("changes-0001.ndjson"), """
+                {"op": "patch", "id": "c-1", "fields": {"price": 90.0}}
+                """);
+        ChangeFeedSync sync = sync(engine);
+        sync.sync();
+        service(engine, sync).write();
+
+        // Synced after the snapshot was written, and lost with the process
+        Files.writeString(changes.resolve("changes-0002.ndjson"), """
+                {"op": "patch", "id": "c-1", "fields": {"price": 80.0}}
+                """);
+        sync.sync();
+
+        InMemoryCourseSearchEngine restarted = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+        ChangeFeedSync restartedSync = sync(restarted);
+        CatalogSnapshotService reader = service(restarted, restartedSync);
+        reader.open();
+        assertThat(reader.restore()).isTrue();
+        assertThat(restarted.findAllById(List.of("c-1")).get(0).getPrice()).isEqualTo(90.0);
+
+        assertThat(restartedSync.sync().indexed()).isEqualTo(1);
+        assertThat(restarted.findAllById(List.of("c-1")).get(0).getPrice()).isEqualTo(80.0);
+    }
+
+    @Test
+    void doesNotRestoreASnapshotOfAnEarlierSource() throws IOException {
+        writeSnapshotOfThreeCourses();
+        Files.writeString(dir.resolve("catalog.json"), "[{\"id\":\"c-1\"},{\"id\":\"c-2\"}]");
+
+        InMemoryCourseSearchEngine restarted = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+        CatalogSnapshotService reader = service(restarted);
+        reader.open();
+
+        assertThat(reader.restore()).isFalse();
+        assertThat(restarted.count()).isZero();
+    }
+
+    @Test
+    void handsOutASnapshotFromAnEarlierRunOnlyAtTheSameCatalogVersion() throws IOException {
+        String[] version = {"v1"};
+        InMemoryCourseSearchEngine engine = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { })) {
+            @Override
+            public String catalogVersion() {
+                return version[0];
+            }
+        };
+        engine.saveAll(List.of(CourseDocument.builder().id("c-1").title("Algebra Basics").build()));
+        Files.writeString(dir.resolve("catalog.json"), "[]");
+        service(engine).write();
+
+        CatalogSnapshotService restarted = service(engine);
+        restarted.open();
+        assertThat(restarted.current()).isPresent();
+
+        // Same size, different contents
+        version[0] = "v2";
+        assertThat(restarted.current()).isEmpty();
+    }
+
+    private void writeSnapshotOfThreeCourses() throws IOException {
+        InMemoryCourseSearchEngine source = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+        source.saveAll(List.of(
+                CourseDocument.builder().id("c-1").title("Algebra Basics").category("Math").build(),
+                CourseDocument.builder().id("c-2").title("Watercolor Club").category("Art").build(),
+                CourseDocument.builder().id("c-3").title("Math Circle").category("Math").build()));
+        Files.writeString(dir.resolve("catalog.json"), "[]");
+        CatalogSnapshotService writer = service(source);
+        writer.open();
+        writer.write();
+    }
+
+    private CatalogSnapshotService service(InMemoryCourseSearchEngine engine) {
+        return service(engine, null);
+    }
+
+    private CatalogSnapshotService service(InMemoryCourseSearchEngine engine, ChangeFeedSync sync) {
+        StaticListableBeanFactory beans = sync != null
+                ? new StaticListableBeanFactory(Map.of("changeFeedSync", sync))
+                : new StaticListableBeanFactory();
+        return new CatalogSnapshotService(engine, beans.getBeanProvider(ChangeFeedSync.class), new DefaultResourceLoader(),
+                true, dir.resolve("catalog.snapshot"), dir.resolve("catalog.json").toUri().toString(), 2);
+    }
+
+    private ChangeFeedSync sync(InMemoryCourseSearchEngine engine) {
+        return new ChangeFeedSync(engine, new AppConfig().objectMapper(), dir.resolve("changes"),
+                dir.resolve("sync.checkpoint"), 10);
+    }
+}
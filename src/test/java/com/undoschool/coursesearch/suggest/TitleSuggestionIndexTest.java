@@ -0,0 +1,123 @@
+package com.undoschool.coursesearch.suggest;
+
+import com.undoschool.coursesearch.catalog.CatalogChangedEvent;
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.InMemoryCourseSearchEngine;
+import com.undoschool.coursesearch.snapshot.CatalogSnapshotService;
+import com.undoschool.coursesearch.sync.ChangeFeedSync;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TitleSuggestionIndexTest {
+
+    private InMemoryCourseSearchEngine engine;
+    private TitleSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        CatalogGeneration catalogGeneration = new CatalogGeneration(event -> {
+            if (index != null) {
+                index.onCatalogChanged((CatalogChangedEvent) event);
+            }
+        });
+        engine = new InMemoryCourseSearchEngine(catalogGeneration);
+        engine.saveAll(List.of(
+                course("c-1", "Advanced Mathematics", "2025-08-15T10:00:00Z"),
+                course("c-2", "Math Club", "2025-08-20T10:00:00Z"),
+                course("c-3", "Math Club", "2025-09-01T10:00:00Z"),
+                course("c-4", "Creative Art Workshop", "2025-08-10T10:00:00Z")
+        ));
+        index = new TitleSuggestionIndex(engine, noSnapshot(), true, SuggestWeight.COURSE_COUNT, 32);
+        index.build();
+    }
+
+    @Test
+    void matchesWordPrefixesRankedByWeight() {
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.suggest("mat", 10)).containsExactly("Math Club", "Advanced Mathematics");
+        assertThat(index.suggest("wor", 10)).containsExactly("Creative Art Workshop");
+        assertThat(index.suggest("xyz", 10)).isEmpty();
+    }
+
+    @Test
+    void ranksTitlesMatchingMoreTermsFirst() {
+        assertThat(index.suggest("advanced mat", 10)).containsExactly("Advanced Mathematics", "Math Club");
+    }
+
+    @Test
+    void followsCatalogChanges() {
+        engine.saveAll(List.of(course("c-5", "Mathematical Puzzles", "2025-08-01T10:00:00Z")));
+        assertThat(index.suggest("mathematical", 10)).containsExactly("Mathematical Puzzles");
+
+        // Renaming the only "Advanced Mathematics" course removes that title
+        engine.saveAll(List.of(course("c-1", "Algebra Basics", "2025-08-15T10:00:00Z")));
+        assertThat(index.suggest("adv", 10)).isEmpty();
+        assertThat(index.suggest("alg", 10)).containsExactly("Algebra Basics");
+
+        engine.deleteAll();
+        assertThat(index.suggest("mat", 10)).isEmpty();
+    }
+
+    @Test
+    void upcomingWeightPrefersSoonestSession() {
+        TitleSuggestionIndex upcoming = new TitleSuggestionIndex(engine, noSnapshot(), true, SuggestWeight.UPCOMING, 32);
+        upcoming.build();
+
+        assertThat(upcoming.suggest("mat", 10)).containsExactly("Advanced Mathematics", "Math Club");
+    }
+
+    @Test
+    void keepsChangesPublishedWhileBuilding() {
+        TitleSuggestionIndex[] building = new TitleSuggestionIndex[1];
+        CatalogGeneration catalogGeneration = new CatalogGeneration(event -> {
+            if (building[0] != null) {
+                building[0].onCatalogChanged((CatalogChangedEvent) event);
+            }
+        });
+        // The change feed can write while the startup build is still reading the catalog
+        InMemoryCourseSearchEngine racing = new InMemoryCourseSearchEngine(catalogGeneration) {
+            @Override
+            public Stream<CourseDocument> streamAll() {
+                Stream<CourseDocument> courses = super.streamAll();
+                saveAll(List.of(course("c-2", "Music Theory", "2025-08-01T10:00:00Z")));
+                return courses;
+            }
+        };
+        racing.saveAll(List.of(course("c-1", "Math Club", "2025-08-20T10:00:00Z")));
+        building[0] = new TitleSuggestionIndex(racing, noSnapshot(racing), true, SuggestWeight.COURSE_COUNT, 32);
+
+        building[0].build();
+
+        assertThat(building[0].suggest("mus", 10)).containsExactly("Music Theory");
+        assertThat(building[0].suggest("mat", 10)).containsExactly("Math Club");
+    }
+
+    private CatalogSnapshotService noSnapshot() {
+        return noSnapshot(engine);
+    }
+
+    private static CatalogSnapshotService noSnapshot(InMemoryCourseSearchEngine engine) {
+        return new CatalogSnapshotService(engine, new StaticListableBeanFactory().getBeanProvider(ChangeFeedSync.class),
+                new DefaultResourceLoader(), false, Path.of("catalog.snapshot"),
+                "classpath:sample-courses.json", 1000);
+    }
+
+    private static CourseDocument course(String id, String title, String nextSessionDate) {
+        return CourseDocument.builder()
+                .id(id)
+                .title(title)
+                .titleSuggest(title)
+                .nextSessionDate(Instant.parse(nextSessionDate))
+                .build();
+    }
+}
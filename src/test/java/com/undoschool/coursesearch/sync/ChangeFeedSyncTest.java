@@ -0,0 +1,127 @@
+package com.undoschool.coursesearch.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.coursesearch.catalog.CatalogGeneration;
+import com.undoschool.coursesearch.config.AppConfig;
+import com.undoschool.coursesearch.document.CourseDocument;
+import com.undoschool.coursesearch.engine.InMemoryCourseSearchEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChangeFeedSyncTest {
+
+    private final ObjectMapper objectMapper = new AppConfig().objectMapper();
+    private final InMemoryCourseSearchEngine engine = new InMemoryCourseSearchEngine(new CatalogGeneration(event -> { }));
+
+    @TempDir
+    private Path dir;
+    private Path changes;
+
+    @BeforeEach
+    void setUp() {
+        changes = dir.resolve("changes");
+        engine.saveAll(List.of(CourseDocument.builder()
+                .id("c-1")
+                .title("Algebra Basics")
+                .category("Math")
+                .price(100.0)
+                .nextSessionDate(Instant.parse("2025-07-20T10:00:00Z"))
+                .build()));
+    }
+
+    @Test
+    void appliesUpsertsPatchesAndDeletesInBatches() throws Exception {
+        Files.createDirectories(changes);
+        Files.writeString(changes.resolve("changes-0001.ndjson"), """
+                {"op": "patch", "id": "c-1", "fields": {"price": 79.0, "nextSessionDate": "2025-08-01T10:00:00Z"}}
+                {"op": "upsert", "id": "c-2", "course": {"title": "Chemistry Lab", "category": "Science", "price": 50.0}}
+                {"op": "patch", "id": "c-2", "fields": {"price": 45.0}}
+                """);
+        Files.writeString(changes.resolve("changes-0002.ndjson"), """
+                {"op": "upsert", "id": "c-3", "course": {"title": "Soccer Skills", "category": "Sports"}}
+                not json
+                {"op": "delete", "id": "c-3"}
+                {"op": "patch", "id": "c-9", "fields": {"price": 1.0}}
+                """);
+
+        ChangeFeedSync.SyncReport report = sync(2).sync();
+
+        assertThat(engine.count()).isEqualTo(2);
+        CourseDocument algebra = find("c-1");
+        assertThat(algebra.getPrice()).isEqualTo(79.0);
+        assertThat(algebra.getNextSessionDate()).isEqualTo(Instant.parse("2025-08-01T10:00:00Z"));
+        assertThat(algebra.getTitle()).isEqualTo("Algebra Basics");
+        assertThat(find("c-2").getPrice()).isEqualTo(45.0);
+        assertThat(find("c-2").getTitleSuggest()).isEqualTo("Chemistry Lab");
+        assertThat(report.skipped()).isEqualTo(2);
+    }
+
+    @Test
+    void resumesFromTheCheckpointAndWaitsForCompleteLines() throws Exception {
+        Files.writeString(changes, """
+                {"op": "patch", "id": "c-1", "fields": {"price": 90.0}}
+                {"op": "patch", "id": "c-1", "fields": {"pri""");
+
+        assertThat(sync(10).sync().indexed()).isEqualTo(1);
+        assertThat(find("c-1").getPrice()).isEqualTo(90.0);
+
+        Files.writeString(changes, "ce\": 80.0}}\n", StandardOpenOption.APPEND);
+        // A new instance picks up from the durable checkpoint, so the first patch is not applied again
+        engine.saveAll(List.of(CourseDocument.builder().id("c-1").title("Algebra Basics").price(100.0).build()));
+        assertThat(sync(10).sync().indexed()).isEqualTo(1);
+        assertThat(find("c-1").getPrice()).isEqualTo(80.0);
+
+        assertThat(sync(10).sync()).isEqualTo(new ChangeFeedSync.SyncReport(0, 0, 0));
+    }
+
+    @Test
+    void readsTheUnterminatedTailOfAFileOnceALaterOneExists() throws Exception {
+        Files.createDirectories(changes);
+        Files.writeString(changes.resolve("changes-0001.ndjson"), """
+                {"op": "patch", "id": "c-1", "fields": {"price": 90.0}}
+                {"op": "patch", "id": "c-1", "fields": {"price": 85.0}}""");
+
+        assertThat(sync(10).sync().indexed()).isEqualTo(1);
+        assertThat(find("c-1").getPrice()).isEqualTo(90.0);
+
+        Files.writeString(changes.resolve("changes-0002.ndjson"), """
+                {"op": "patch", "id": "c-1", "fields": {"price": 80.0}}
+                """);
+        assertThat(sync(10).sync().indexed()).isEqualTo(1);
+        assertThat(find("c-1").getPrice()).isEqualTo(80.0);
+        assertThat(sync(10).sync()).isEqualTo(new ChangeFeedSync.SyncReport(0, 0, 0));
+    }
+
+    @Test
+    void replaysTheWholeLogOnceRewoundToTheStart() throws Exception {
+        Files.writeString(changes, """
+                {"op": "patch", "id": "c-1", "fields": {"price": 90.0}}
+                """);
+        assertThat(sync(10).sync().indexed()).isEqualTo(1);
+
+        // The catalog is loaded from source again, without the synced change
+        engine.saveAll(List.of(CourseDocument.builder().id("c-1").title("Algebra Basics").price(100.0).build()));
+        ChangeFeedSync restarted = sync(10);
+        restarted.rewind(null);
+
+        assertThat(restarted.sync().indexed()).isEqualTo(1);
+        assertThat(find("c-1").getPrice()).isEqualTo(90.0);
+    }
+
+    private ChangeFeedSync sync(int batchSize) {
+        return new ChangeFeedSync(engine, objectMapper, changes, dir.resolve("sync.checkpoint"), batchSize);
+    }
+
+    private CourseDocument find(String id) {
+        return engine.findAllById(List.of(id)).get(0);
+    }
+}